@@ -0,0 +1,119 @@
+package cn.addenda.loglearn;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * agent的配置。先读agent目录下的agent.properties（存在时），再用premain的args覆盖。
+ * <p>
+ * args的格式为key1=value1,key2=value2；其中config=xxx可以指定配置文件的路径。
+ * 列表类型的值用英文分号分隔，例如isolation.include=org.slf4j.;org.apache.logging.log4j.
+ */
+public class AgentConfig {
+
+  public static final String CONFIG_KEY = "config";
+  public static final String CONFIG_FILE_NAME = "agent.properties";
+
+  private static volatile AgentConfig INSTANCE;
+
+  private final Properties properties;
+
+  private AgentConfig(Properties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * 需要在{@link MyLoggerFactory}初始化之前调用，否则使用的是默认配置
+   */
+  public static synchronized void init(String agentArgs) {
+    if (INSTANCE != null) {
+      System.out.println("AgentConfig has been initialized, agentArgs are ignored: " + agentArgs);
+      return;
+    }
+    Properties argProperties = parseArgs(agentArgs);
+    Properties properties = new Properties();
+
+    String configPath = argProperties.getProperty(CONFIG_KEY);
+    File configFile = configPath != null ? new File(configPath) : new File(AgentPackagePath.getPath(), CONFIG_FILE_NAME);
+    if (configFile.isFile()) {
+      try (InputStream inputStream = new FileInputStream(configFile)) {
+        properties.load(inputStream);
+        System.out.println(String.format("load agent config %s success.", configFile));
+      } catch (IOException e) {
+        System.out.println(String.format("load agent config %s fail.", configFile));
+        e.printStackTrace();
+      }
+    }
+    properties.putAll(argProperties);
+    INSTANCE = new AgentConfig(properties);
+  }
+
+  public static AgentConfig get() {
+    AgentConfig agentConfig = INSTANCE;
+    if (agentConfig == null) {
+      init(null);
+      agentConfig = INSTANCE;
+    }
+    return agentConfig;
+  }
+
+  public String getString(String key, String defaultValue) {
+    String value = properties.getProperty(key);
+    return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+  }
+
+  public boolean getBoolean(String key, boolean defaultValue) {
+    String value = getString(key, null);
+    return value == null ? defaultValue : Boolean.parseBoolean(value);
+  }
+
+  public int getInt(String key, int defaultValue) {
+    String value = getString(key, null);
+    return value == null ? defaultValue : Integer.parseInt(value);
+  }
+
+  public long getLong(String key, long defaultValue) {
+    String value = getString(key, null);
+    return value == null ? defaultValue : Long.parseLong(value);
+  }
+
+  /**
+   * @return 配置不存在时返回defaultValue
+   */
+  public List<String> getList(String key, List<String> defaultValue) {
+    String value = getString(key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    List<String> list = new ArrayList<>();
+    for (String item : value.split(";")) {
+      if (!item.trim().isEmpty()) {
+        list.add(item.trim());
+      }
+    }
+    return Collections.unmodifiableList(list);
+  }
+
+  private static Properties parseArgs(String agentArgs) {
+    Properties properties = new Properties();
+    if (agentArgs == null) {
+      return properties;
+    }
+    for (String arg : agentArgs.split(",")) {
+      int index = arg.indexOf('=');
+      if (index > 0) {
+        properties.setProperty(arg.substring(0, index).trim(), arg.substring(index + 1).trim());
+      } else if (!arg.trim().isEmpty()) {
+        System.out.println("illegal agent arg, expect key=value: " + arg);
+      }
+    }
+    return properties;
+  }
+
+}
@@ -0,0 +1,2181 @@
+package cn.addenda.loglearn;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Supplier;
+
+/**
+ * agent自己打日志用的Logger，从{@link MyLoggerFactory#getAgentLogger(Class)}获取。
+ * <p>
+ * slf4j的Logger接口只有Object参数，三个及以上的参数要创建数组，基本类型的参数要装箱，日志被级别过滤掉时也一样。
+ * 这里为常用的组合提供了基本类型的重载（int、short、byte走long，float走double；char也会走long，按数值输出），调用转发给隔离侧的
+ * cn.addenda.loglearn.plugin.AgentLogSink：参数放进每个线程复用的消息里交给log4j，稳定运行时一次调用不分配内存，
+ * 见benchmark里的AgentLoggerBenchmark。
+ * <p>
+ * 格式和slf4j一样：{}是占位符，\\{}输出{}；最后一个Object参数是Throwable、且占位符比参数少时当作异常输出。
+ * 两到四个参数的重载覆盖Object和long的所有组合（例如(Object, long, Object)），double、boolean只有一个参数的重载；
+ * 多个参数里混用double、boolean和long（例如(double, long)）时编译会报重载有歧义，需要把其中一个参数转成Object或long。
+ * 超过四个参数时用slf4j的Logger。
+ * <p>
+ * 开启的级别缓存在{@link LevelCache}里，被级别过滤掉的调用不进入隔离侧。参数要花时间计算时用xxxLazy方法传Supplier，
+ * 例如{@code logger.debugLazy("state {}", () -> dump(state))}，只有这一级别开启时才调用Supplier。
+ * 不和(String, Throwable)、(String, Object, Object)重载，{@code logger.info("x {}", null)}这样的调用不会有歧义。
+ */
+public final class AgentLogger {
+
+  private static final int TRACE = LevelCache.TRACE;
+  private static final int DEBUG = LevelCache.DEBUG;
+  private static final int INFO = LevelCache.INFO;
+  private static final int WARN = LevelCache.WARN;
+  private static final int ERROR = LevelCache.ERROR;
+
+  private static final MethodHandle GET_LOGGER;
+  private static final MethodHandle IS_ENABLED;
+  private static final MethodHandle LOG_S;
+  private static final MethodHandle LOG_SO;
+  private static final MethodHandle LOG_SOO;
+  private static final MethodHandle LOG_SL;
+  private static final MethodHandle LOG_SD;
+  private static final MethodHandle LOG_SZ;
+  private static final MethodHandle LOG_SLL;
+  private static final MethodHandle LOG_SOL;
+  private static final MethodHandle LOG_SLO;
+  private static final MethodHandle LOG_SOOO;
+  private static final MethodHandle LOG_SOOL;
+  private static final MethodHandle LOG_SOLO;
+  private static final MethodHandle LOG_SOLL;
+  private static final MethodHandle LOG_SLOO;
+  private static final MethodHandle LOG_SLOL;
+  private static final MethodHandle LOG_SLLO;
+  private static final MethodHandle LOG_SLLL;
+  private static final MethodHandle LOG_SOOOO;
+  private static final MethodHandle LOG_SOOOL;
+  private static final MethodHandle LOG_SOOLO;
+  private static final MethodHandle LOG_SOOLL;
+  private static final MethodHandle LOG_SOLOO;
+  private static final MethodHandle LOG_SOLOL;
+  private static final MethodHandle LOG_SOLLO;
+  private static final MethodHandle LOG_SOLLL;
+  private static final MethodHandle LOG_SLOOO;
+  private static final MethodHandle LOG_SLOOL;
+  private static final MethodHandle LOG_SLOLO;
+  private static final MethodHandle LOG_SLOLL;
+  private static final MethodHandle LOG_SLLOO;
+  private static final MethodHandle LOG_SLLOL;
+  private static final MethodHandle LOG_SLLLO;
+  private static final MethodHandle LOG_SLLLL;
+  private static final MethodHandle LOG_ST;
+
+  static {
+    try {
+      ClassLoader isolatedLoader = MyLoggerFactory.getLoggerInterface().getClassLoader();
+      Class<?> sinkClass = Class.forName("cn.addenda.loglearn.plugin.AgentLogSink", true, isolatedLoader);
+      GET_LOGGER = MethodHandles.publicLookup()
+              .findStatic(sinkClass, "getLogger", MethodType.methodType(Object.class, String.class, Object.class));
+      IS_ENABLED = MethodHandles.publicLookup()
+              .findStatic(sinkClass, "isEnabled", MethodType.methodType(boolean.class, Object.class, int.class));
+      LOG_S = log(sinkClass, String.class);
+      LOG_SO = log(sinkClass, String.class, Object.class);
+      LOG_SOO = log(sinkClass, String.class, Object.class, Object.class);
+      LOG_SL = log(sinkClass, String.class, long.class);
+      LOG_SD = log(sinkClass, String.class, double.class);
+      LOG_SZ = log(sinkClass, String.class, boolean.class);
+      LOG_SLL = log(sinkClass, String.class, long.class, long.class);
+      LOG_SOL = log(sinkClass, String.class, Object.class, long.class);
+      LOG_SLO = log(sinkClass, String.class, long.class, Object.class);
+      LOG_SOOO = log(sinkClass, String.class, Object.class, Object.class, Object.class);
+      LOG_SOOL = log(sinkClass, String.class, Object.class, Object.class, long.class);
+      LOG_SOLO = log(sinkClass, String.class, Object.class, long.class, Object.class);
+      LOG_SOLL = log(sinkClass, String.class, Object.class, long.class, long.class);
+      LOG_SLOO = log(sinkClass, String.class, long.class, Object.class, Object.class);
+      LOG_SLOL = log(sinkClass, String.class, long.class, Object.class, long.class);
+      LOG_SLLO = log(sinkClass, String.class, long.class, long.class, Object.class);
+      LOG_SLLL = log(sinkClass, String.class, long.class, long.class, long.class);
+      LOG_SOOOO = log(sinkClass, String.class, Object.class, Object.class, Object.class, Object.class);
+      LOG_SOOOL = log(sinkClass, String.class, Object.class, Object.class, Object.class, long.class);
+      LOG_SOOLO = log(sinkClass, String.class, Object.class, Object.class, long.class, Object.class);
+      LOG_SOOLL = log(sinkClass, String.class, Object.class, Object.class, long.class, long.class);
+      LOG_SOLOO = log(sinkClass, String.class, Object.class, long.class, Object.class, Object.class);
+      LOG_SOLOL = log(sinkClass, String.class, Object.class, long.class, Object.class, long.class);
+      LOG_SOLLO = log(sinkClass, String.class, Object.class, long.class, long.class, Object.class);
+      LOG_SOLLL = log(sinkClass, String.class, Object.class, long.class, long.class, long.class);
+      LOG_SLOOO = log(sinkClass, String.class, long.class, Object.class, Object.class, Object.class);
+      LOG_SLOOL = log(sinkClass, String.class, long.class, Object.class, Object.class, long.class);
+      LOG_SLOLO = log(sinkClass, String.class, long.class, Object.class, long.class, Object.class);
+      LOG_SLOLL = log(sinkClass, String.class, long.class, Object.class, long.class, long.class);
+      LOG_SLLOO = log(sinkClass, String.class, long.class, long.class, Object.class, Object.class);
+      LOG_SLLOL = log(sinkClass, String.class, long.class, long.class, Object.class, long.class);
+      LOG_SLLLO = log(sinkClass, String.class, long.class, long.class, long.class, Object.class);
+      LOG_SLLLL = log(sinkClass, String.class, long.class, long.class, long.class, long.class);
+      LOG_ST = log(sinkClass, String.class, Throwable.class);
+    } catch (Exception e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final String name;
+  /**
+   * 隔离类加载器里的log4j Logger实例
+   */
+  private final Object target;
+  private final LevelCache levelCache;
+
+  private AgentLogger(String name, Object target) {
+    this.name = name;
+    this.target = target;
+    this.levelCache = LevelCache.forLogger(name);
+  }
+
+  /**
+   * 从MyLoggerFactory创建的隔离LoggerContext里取Logger，配置和slf4j的Logger一样
+   */
+  static AgentLogger create(String name) {
+    try {
+      return new AgentLogger(name, (Object) GET_LOGGER.invokeExact(name, MyLoggerFactory.getLoggerContext()));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  /**
+   * AgentLogSink.log(Object logger, int level, ptypes...)
+   */
+  private static MethodHandle log(Class<?> sinkClass, Class<?>... ptypes)
+          throws NoSuchMethodException, IllegalAccessException {
+    MethodType type = MethodType.methodType(void.class, ptypes).insertParameterTypes(0, Object.class, int.class);
+    return MethodHandles.publicLookup().findStatic(sinkClass, "log", type);
+  }
+
+  private static RuntimeException rethrow(Throwable e) {
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    throw new IllegalStateException(e);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  private boolean isEnabled(int level) {
+    int enabled = levelCache.isEnabled(level);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_ENABLED.invokeExact(target, level);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public boolean isTraceEnabled() {
+    return isEnabled(TRACE);
+  }
+
+  public void trace(String msg) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_S.invokeExact(target, TRACE, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, TRACE, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, TRACE, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SL.invokeExact(target, TRACE, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, double arg) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SD.invokeExact(target, TRACE, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, boolean arg) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SZ.invokeExact(target, TRACE, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, long arg2) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLL.invokeExact(target, TRACE, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, long arg2) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOL.invokeExact(target, TRACE, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, Object arg2) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLO.invokeExact(target, TRACE, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOOO.invokeExact(target, TRACE, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOOL.invokeExact(target, TRACE, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOLO.invokeExact(target, TRACE, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOLL.invokeExact(target, TRACE, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLOO.invokeExact(target, TRACE, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLOL.invokeExact(target, TRACE, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLLO.invokeExact(target, TRACE, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLLL.invokeExact(target, TRACE, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOOOO.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOOOL.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOOLO.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOOLL.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOLOO.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOLOL.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOLLO.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, Object arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOLLL.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLOOO.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLOOL.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLOLO.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLOLL.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLLOO.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLLOL.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLLLO.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String format, long arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SLLLL.invokeExact(target, TRACE, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void trace(String msg, Throwable t) {
+    if (levelCache.isDisabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_ST.invokeExact(target, TRACE, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void traceLazy(String format, Supplier<?> arg) {
+    if (!isEnabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, TRACE, format, arg.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void traceLazy(String format, Supplier<?> arg1, Supplier<?> arg2) {
+    if (!isEnabled(TRACE)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, TRACE, format, arg1.get(), arg2.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public boolean isDebugEnabled() {
+    return isEnabled(DEBUG);
+  }
+
+  public void debug(String msg) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_S.invokeExact(target, DEBUG, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, DEBUG, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, DEBUG, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SL.invokeExact(target, DEBUG, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, double arg) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SD.invokeExact(target, DEBUG, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, boolean arg) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SZ.invokeExact(target, DEBUG, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, long arg2) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLL.invokeExact(target, DEBUG, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, long arg2) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOL.invokeExact(target, DEBUG, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, Object arg2) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLO.invokeExact(target, DEBUG, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOOO.invokeExact(target, DEBUG, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOOL.invokeExact(target, DEBUG, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOLO.invokeExact(target, DEBUG, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOLL.invokeExact(target, DEBUG, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLOO.invokeExact(target, DEBUG, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLOL.invokeExact(target, DEBUG, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLLO.invokeExact(target, DEBUG, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLLL.invokeExact(target, DEBUG, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOOOO.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOOOL.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOOLO.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOOLL.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOLOO.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOLOL.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOLLO.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, Object arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOLLL.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLOOO.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLOOL.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLOLO.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLOLL.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLLOO.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLLOL.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLLLO.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String format, long arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SLLLL.invokeExact(target, DEBUG, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debug(String msg, Throwable t) {
+    if (levelCache.isDisabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_ST.invokeExact(target, DEBUG, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debugLazy(String format, Supplier<?> arg) {
+    if (!isEnabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, DEBUG, format, arg.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void debugLazy(String format, Supplier<?> arg1, Supplier<?> arg2) {
+    if (!isEnabled(DEBUG)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, DEBUG, format, arg1.get(), arg2.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public boolean isInfoEnabled() {
+    return isEnabled(INFO);
+  }
+
+  public void info(String msg) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_S.invokeExact(target, INFO, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, INFO, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, INFO, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SL.invokeExact(target, INFO, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, double arg) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SD.invokeExact(target, INFO, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, boolean arg) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SZ.invokeExact(target, INFO, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, long arg2) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLL.invokeExact(target, INFO, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, long arg2) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOL.invokeExact(target, INFO, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, Object arg2) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLO.invokeExact(target, INFO, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOOO.invokeExact(target, INFO, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOOL.invokeExact(target, INFO, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOLO.invokeExact(target, INFO, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOLL.invokeExact(target, INFO, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLOO.invokeExact(target, INFO, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLOL.invokeExact(target, INFO, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLLO.invokeExact(target, INFO, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLLL.invokeExact(target, INFO, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOOOO.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOOOL.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOOLO.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOOLL.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOLOO.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOLOL.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOLLO.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, Object arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOLLL.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLOOO.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLOOL.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLOLO.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLOLL.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLLOO.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLLOL.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLLLO.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String format, long arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SLLLL.invokeExact(target, INFO, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void info(String msg, Throwable t) {
+    if (levelCache.isDisabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_ST.invokeExact(target, INFO, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void infoLazy(String format, Supplier<?> arg) {
+    if (!isEnabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, INFO, format, arg.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void infoLazy(String format, Supplier<?> arg1, Supplier<?> arg2) {
+    if (!isEnabled(INFO)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, INFO, format, arg1.get(), arg2.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public boolean isWarnEnabled() {
+    return isEnabled(WARN);
+  }
+
+  public void warn(String msg) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_S.invokeExact(target, WARN, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, WARN, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, WARN, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SL.invokeExact(target, WARN, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, double arg) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SD.invokeExact(target, WARN, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, boolean arg) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SZ.invokeExact(target, WARN, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, long arg2) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLL.invokeExact(target, WARN, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, long arg2) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOL.invokeExact(target, WARN, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, Object arg2) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLO.invokeExact(target, WARN, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOOO.invokeExact(target, WARN, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOOL.invokeExact(target, WARN, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOLO.invokeExact(target, WARN, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOLL.invokeExact(target, WARN, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLOO.invokeExact(target, WARN, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLOL.invokeExact(target, WARN, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLLO.invokeExact(target, WARN, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLLL.invokeExact(target, WARN, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOOOO.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOOOL.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOOLO.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOOLL.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOLOO.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOLOL.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOLLO.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, Object arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOLLL.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLOOO.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLOOL.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLOLO.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLOLL.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLLOO.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLLOL.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLLLO.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String format, long arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SLLLL.invokeExact(target, WARN, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warn(String msg, Throwable t) {
+    if (levelCache.isDisabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_ST.invokeExact(target, WARN, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warnLazy(String format, Supplier<?> arg) {
+    if (!isEnabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, WARN, format, arg.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void warnLazy(String format, Supplier<?> arg1, Supplier<?> arg2) {
+    if (!isEnabled(WARN)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, WARN, format, arg1.get(), arg2.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public boolean isErrorEnabled() {
+    return isEnabled(ERROR);
+  }
+
+  public void error(String msg) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_S.invokeExact(target, ERROR, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, ERROR, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, ERROR, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SL.invokeExact(target, ERROR, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, double arg) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SD.invokeExact(target, ERROR, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, boolean arg) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SZ.invokeExact(target, ERROR, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, long arg2) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLL.invokeExact(target, ERROR, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, long arg2) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOL.invokeExact(target, ERROR, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, Object arg2) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLO.invokeExact(target, ERROR, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOOO.invokeExact(target, ERROR, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOOL.invokeExact(target, ERROR, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOLO.invokeExact(target, ERROR, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOLL.invokeExact(target, ERROR, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, Object arg2, Object arg3) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLOO.invokeExact(target, ERROR, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, Object arg2, long arg3) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLOL.invokeExact(target, ERROR, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, long arg2, Object arg3) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLLO.invokeExact(target, ERROR, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, long arg2, long arg3) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLLL.invokeExact(target, ERROR, format, arg1, arg2, arg3);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOOOO.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOOOL.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOOLO.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOOLL.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOLOO.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOLOL.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOLLO.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, Object arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOLLL.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, Object arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLOOO.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, Object arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLOOL.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, Object arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLOLO.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, Object arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLOLL.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, long arg2, Object arg3, Object arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLLOO.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, long arg2, Object arg3, long arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLLOL.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, long arg2, long arg3, Object arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLLLO.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String format, long arg1, long arg2, long arg3, long arg4) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SLLLL.invokeExact(target, ERROR, format, arg1, arg2, arg3, arg4);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void error(String msg, Throwable t) {
+    if (levelCache.isDisabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_ST.invokeExact(target, ERROR, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void errorLazy(String format, Supplier<?> arg) {
+    if (!isEnabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SO.invokeExact(target, ERROR, format, arg.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void errorLazy(String format, Supplier<?> arg1, Supplier<?> arg2) {
+    if (!isEnabled(ERROR)) {
+      return;
+    }
+    try {
+      LOG_SOO.invokeExact(target, ERROR, format, arg1.get(), arg2.get());
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
@@ -12,20 +12,44 @@ import java.net.URL;
  */
 public class AgentPackagePath {
 
+  /**
+   * 不以agent的方式运行时（例如benchmark）用这个系统属性指定agent目录，即包含lib/log的dist目录
+   */
+  public static final String HOME_PROPERTY = "loglearn.home";
+
   private static File AGENT_PACKAGE_PATH;
+  private static File AGENT_JAR_FILE;
 
   public static File getPath() {
     if (AGENT_PACKAGE_PATH == null) {
-      AGENT_PACKAGE_PATH = findPath();
+      int phase = StartupProfiler.begin("agentPath");
+      try {
+        AGENT_PACKAGE_PATH = findPath();
+      } finally {
+        StartupProfiler.end(phase);
+      }
     }
     return AGENT_PACKAGE_PATH;
   }
 
+  /**
+   * @return agent的jar文件，agent不是从jar里加载的（例如IDE里直接运行classes目录、benchmark）时返回null
+   */
+  public static File getJarFile() {
+    getPath();
+    return AGENT_JAR_FILE;
+  }
+
   public static boolean isPathFound() {
     return AGENT_PACKAGE_PATH != null;
   }
 
   private static File findPath() {
+    String home = System.getProperty(HOME_PROPERTY);
+    if (home != null && !home.trim().isEmpty()) {
+      return new File(home.trim()).getAbsoluteFile();
+    }
+
     String classResourcePath = AgentPackagePath.class.getName().replaceAll("\\.", "/") + ".class";
 
     URL resource = ClassLoader.getSystemClassLoader().getResource(classResourcePath);
@@ -45,6 +69,7 @@ public class AgentPackagePath {
           throw new RuntimeException("cannot find agent path");
         }
         if (agentJarFile.exists()) {
+          AGENT_JAR_FILE = agentJarFile;
           return agentJarFile.getParentFile();
         }
       } else {
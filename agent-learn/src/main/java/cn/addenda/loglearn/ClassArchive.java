@@ -0,0 +1,231 @@
+package cn.addenda.loglearn;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+/**
+ * 预先解压好的class：把lib/log下所有jar里的class解压出来，不压缩地放进一个文件（class-archive.bin），
+ * 文件头里是一个{@link JarEntryIndex}，之后是按8字节对齐的class字节。
+ * <p>
+ * 运行时把整个文件mmap进来，定义类时直接用其中的一段ByteBuffer调用defineClass，
+ * 不用解压，不用读local header，也不用为class字节分配数组。
+ * <p>
+ * 这是可选的构建步骤（mvn -P class-archive package，或者直接运行{@link #main(String[])}），文件不存在时从jar读取。
+ * 文件头里的索引记录了构建时每个jar的名称、大小、end of central directory record的CRC32，
+ * 和运行时的jar对不上（增加、删除、替换了jar）就不再使用，同样从jar读取。
+ * 不比较修改时间：archive是构建产物，发布时拷贝文件不一定保留修改时间。
+ * <p>
+ * 格式（大端）：
+ * <pre>
+ * int magic, int version, int indexLength, byte[indexLength] index,
+ * 对齐到8字节, class字节（每个都对齐到8字节）
+ * </pre>
+ * index里只有.class的entry，method都是STORED，offset是class字节相对于数据区开头的偏移量。
+ */
+final class ClassArchive {
+
+  static final String FILE_NAME = "class-archive.bin";
+
+  private static final int MAGIC = 0x4C4C4341;
+  private static final int VERSION = 1;
+  private static final int HEADER_LENGTH = 12;
+  private static final int ALIGNMENT = 8;
+
+  private final ByteBuffer buffer;
+  private final JarEntryIndex entryIndex;
+  private final int dataOffset;
+
+  private ClassArchive(ByteBuffer buffer, JarEntryIndex entryIndex, int dataOffset) {
+    this.buffer = buffer;
+    this.entryIndex = entryIndex;
+    this.dataOffset = dataOffset;
+  }
+
+  /**
+   * @param jarEntryIndex 运行时的jar索引，archive里的jar要和它一一对应
+   * @return 文件不存在、过期或者损坏时返回null
+   */
+  static ClassArchive open(File archiveFile, JarEntryIndex jarEntryIndex) {
+    if (!archiveFile.isFile()) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(archiveFile.toPath(), StandardOpenOption.READ)) {
+      // mapping在channel关闭后依然有效
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+        throw new IOException("invalid class archive.");
+      }
+      int indexLength = buffer.getInt(8);
+      int dataOffset = align(HEADER_LENGTH + indexLength);
+      if (indexLength < 0 || dataOffset > buffer.limit()) {
+        throw new IOException("truncated class archive.");
+      }
+      JarEntryIndex entryIndex = JarEntryIndex.wrap(slice(buffer, HEADER_LENGTH, indexLength));
+      if (!matches(entryIndex, jarEntryIndex)) {
+        System.out.println(String.format("class archive %s is stale.", archiveFile));
+        return null;
+      }
+      System.out.println(String.format("read class archive %s success, %s classes.", archiveFile, entryIndex.size()));
+      return new ClassArchive(buffer, entryIndex, dataOffset);
+    } catch (Exception e) {
+      System.out.println(String.format("read class archive %s fail: %s", archiveFile, e));
+      return null;
+    }
+  }
+
+  /**
+   * @return 第一个匹配的槽位，不存在时返回-1。同名的class按jar的顺序排列，和{@link JarEntryIndex#find(String)}一致
+   */
+  int find(String name) {
+    return entryIndex.find(name);
+  }
+
+  int findNext(String name, int slot) {
+    return entryIndex.findNext(name, slot);
+  }
+
+  /**
+   * @return class字节，是mmap的一段，只读
+   */
+  ByteBuffer read(int slot) throws IOException {
+    long offset = (long) dataOffset + entryIndex.offset(slot);
+    int size = entryIndex.size(slot);
+    if (offset + size > buffer.limit()) {
+      throw new IOException(String.format("truncated class archive at %s.", offset));
+    }
+    return slice(buffer, (int) offset, size);
+  }
+
+  private static boolean matches(JarEntryIndex entryIndex, JarEntryIndex jarEntryIndex) {
+    if (entryIndex.jarCount() != jarEntryIndex.jarCount()) {
+      return false;
+    }
+    for (int jarId = 0; jarId < jarEntryIndex.jarCount(); jarId++) {
+      if (!entryIndex.jarName(jarId).equals(jarEntryIndex.jarName(jarId))
+              || entryIndex.jarKey(jarId, 0) != jarEntryIndex.jarKey(jarId, 0)
+              || entryIndex.jarKey(jarId, 2) != jarEntryIndex.jarKey(jarId, 2)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 构建步骤：java -cp agent-learn.jar cn.addenda.loglearn.ClassArchive &lt;lib/log目录或单文件发布的agent jar&gt;
+   * <p>
+   * 目录布局写到lib/log/class-archive.bin；单文件发布写到agent jar旁边，和jar-index.idx放在一起
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.out.println("usage: ClassArchive <lib/log directory | agent jar>");
+      System.exit(1);
+    }
+    File source = new File(args[0]).getAbsoluteFile();
+    JarEntryIndex jarEntryIndex;
+    List<ByteBuffer> jarContents = new ArrayList<>();
+    File archiveFile;
+    if (source.isDirectory()) {
+      jarEntryIndex = JarIndexCache.load(source, JarIndexCache.jarSourceFiles(source));
+      for (int jarId = 0; jarId < jarEntryIndex.jarCount(); jarId++) {
+        File jarSourceFile = new File(source, jarEntryIndex.jarName(jarId));
+        try (FileChannel jarChannel = FileChannel.open(jarSourceFile.toPath(), StandardOpenOption.READ)) {
+          jarContents.add(jarChannel.map(FileChannel.MapMode.READ_ONLY, 0, jarChannel.size()));
+        }
+      }
+      archiveFile = new File(source, FILE_NAME);
+    } else {
+      NestedJars nestedJars = NestedJars.open(source);
+      if (nestedJars == null) {
+        throw new IOException(String.format("no %s*.jar in %s.", NestedJars.PREFIX, source));
+      }
+      jarEntryIndex = nestedJars.getEntryIndex();
+      for (int jarId = 0; jarId < jarEntryIndex.jarCount(); jarId++) {
+        jarContents.add(nestedJars.jarContent(jarId));
+      }
+      archiveFile = new File(source.getParentFile(), FILE_NAME);
+    }
+
+    ByteBuffer archive = build(jarEntryIndex, jarContents);
+    JarIndexCache.write(archiveFile, archive);
+    System.out.println(String.format("write class archive %s success, %s bytes.", archiveFile, archive.limit()));
+  }
+
+  /**
+   * @param jarContents 每个jar的全部内容，和jarEntryIndex里的jar编号一致
+   */
+  static ByteBuffer build(JarEntryIndex jarEntryIndex, List<ByteBuffer> jarContents) throws IOException {
+    List<String> jarNames = new ArrayList<>();
+    long[] jarKeys = new long[jarEntryIndex.jarCount() * 3];
+    List<JarDirectory> classDirectories = new ArrayList<>();
+    List<byte[]> classes = new ArrayList<>();
+    int dataLength = 0;
+    for (int jarId = 0; jarId < jarEntryIndex.jarCount(); jarId++) {
+      jarNames.add(jarEntryIndex.jarName(jarId));
+      for (int i = 0; i < 3; i++) {
+        jarKeys[jarId * 3 + i] = jarEntryIndex.jarKey(jarId, i);
+      }
+
+      ByteBuffer jarContent = jarContents.get(jarId);
+      JarDirectory jarDirectory = JarDirectory.parse(jarContent);
+      int classCount = 0;
+      for (String name : jarDirectory.names) {
+        if (name.endsWith(".class")) {
+          classCount++;
+        }
+      }
+      JarDirectory classDirectory = new JarDirectory(classCount);
+      int classId = 0;
+      for (int i = 0; i < jarDirectory.size(); i++) {
+        if (!jarDirectory.names[i].endsWith(".class")) {
+          continue;
+        }
+        byte[] bytes = JarDirectory.read(jarContent, jarDirectory.offsets[i], jarDirectory.methods[i],
+                jarDirectory.compressedSizes[i], jarDirectory.sizes[i]);
+        classDirectory.names[classId] = jarDirectory.names[i];
+        classDirectory.methods[classId] = ZipEntry.STORED;
+        classDirectory.compressedSizes[classId] = bytes.length;
+        classDirectory.sizes[classId] = bytes.length;
+        classDirectory.offsets[classId] = dataLength;
+        classes.add(bytes);
+        dataLength = align(dataLength + bytes.length);
+        if (dataLength < 0) {
+          throw new IOException("class archive is too large.");
+        }
+        classId++;
+      }
+      classDirectories.add(classDirectory);
+    }
+
+    ByteBuffer index = JarEntryIndex.build(jarNames, jarKeys, classDirectories).buffer();
+    int dataOffset = align(HEADER_LENGTH + index.limit());
+    ByteBuffer archive = ByteBuffer.allocate(dataOffset + dataLength);
+    archive.putInt(MAGIC).putInt(VERSION).putInt(index.limit()).put(index);
+    int position = dataOffset;
+    for (byte[] bytes : classes) {
+      ((Buffer) archive).position(position);
+      archive.put(bytes);
+      position = align(position + bytes.length);
+    }
+    ((Buffer) archive).clear();
+    return archive;
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+    ByteBuffer duplicate = buffer.duplicate();
+    ((Buffer) duplicate).position(offset);
+    ((Buffer) duplicate).limit(offset + length);
+    return duplicate.slice();
+  }
+
+  private static int align(int position) {
+    return (position + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+}
@@ -0,0 +1,197 @@
+package cn.addenda.loglearn;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按上一次运行的记录，在premain结束后用后台线程预先加载隔离的类，业务线程第一次打日志时不用再一个一个地加载log4j-core的类。
+ * <p>
+ * 类列表（preload-classes.lst）和jar-index.idx放在一起。没有列表、或者列表记录的jar和现在的对不上（增加、删除、替换了jar）时，
+ * 这一次运行就是训练：记录premain结束之后隔离类加载器定义的每个类，进程退出时写入列表；下一次启动时按列表预加载。
+ * premain自己总会定义的类（初始化LoggerContext用到的）不记录，预加载它们没有意义。
+ * 训练时一个类都没有记录（例如进程在第一次打日志之前就退出了）不写列表，读到空的列表也当作没有列表，下一次启动接着训练。
+ * 要重新训练时删除列表即可。
+ * <p>
+ * 预加载只加载不初始化（Class.forName的initialize为false），不会提前执行log4j的静态代码块；
+ * 多个线程按列表的顺序（也就是训练时定义的顺序）取类，和业务线程同时加载同一个类时由类加载器的锁保证只定义一次。
+ * <p>
+ * 格式（UTF-8文本）：
+ * <pre>
+ * jar log4j-api-2.17.2.jar 302511 3506402914
+ * ...
+ * org.apache.logging.log4j.LogManager
+ * ...
+ * </pre>
+ * jar行依次是名称、大小、end of central directory record的CRC32；不比较修改时间，理由和{@link ClassArchive}一样。
+ */
+final class ClassPreloader {
+
+  static final String FILE_NAME = "preload-classes.lst";
+
+  private final File listFile;
+  private final JarEntryIndex entryIndex;
+  /**
+   * 要预加载的类，训练时为null
+   */
+  private final List<String> classNames;
+  /**
+   * 训练时记录定义的类，预加载时为null
+   */
+  private final Queue<String> definedClasses;
+  /**
+   * 训练时在{@link #start(AgentConfig)}里打开，之前定义的类不记录
+   */
+  private volatile boolean recording;
+  /**
+   * 当前线程是不是预加载的线程
+   */
+  private final ThreadLocal<Boolean> preloading = new ThreadLocal<>();
+  /**
+   * 预加载的线程实际定义的类，已经被其他线程加载过的不算
+   */
+  private final AtomicInteger preloadedCount = new AtomicInteger();
+
+  private ClassPreloader(File listFile, JarEntryIndex entryIndex, List<String> classNames) {
+    this.listFile = listFile;
+    this.entryIndex = entryIndex;
+    this.classNames = classNames;
+    this.definedClasses = classNames == null ? new ConcurrentLinkedQueue<>() : null;
+  }
+
+  /**
+   * @param entryIndex 运行时的jar索引，列表里的jar要和它一一对应
+   */
+  static ClassPreloader open(File listFile, JarEntryIndex entryIndex) {
+    if (!listFile.isFile()) {
+      return new ClassPreloader(listFile, entryIndex, null);
+    }
+    try (BufferedReader reader = Files.newBufferedReader(listFile.toPath(), StandardCharsets.UTF_8)) {
+      List<String> classNames = new ArrayList<>();
+      int jarId = 0;
+      boolean stale = false;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        if (!line.startsWith("jar ")) {
+          classNames.add(line);
+          continue;
+        }
+        String[] fields = line.split(" ");
+        if (fields.length != 4 || jarId >= entryIndex.jarCount()
+                || !fields[1].equals(entryIndex.jarName(jarId))
+                || Long.parseLong(fields[2]) != entryIndex.jarKey(jarId, 0)
+                || Long.parseLong(fields[3]) != entryIndex.jarKey(jarId, 2)) {
+          stale = true;
+          break;
+        }
+        jarId++;
+      }
+      if (stale || jarId != entryIndex.jarCount()) {
+        System.out.println(String.format("preload class list %s is stale, record a new one.", listFile));
+        return new ClassPreloader(listFile, entryIndex, null);
+      }
+      if (classNames.isEmpty()) {
+        System.out.println(String.format("preload class list %s is empty, record a new one.", listFile));
+        return new ClassPreloader(listFile, entryIndex, null);
+      }
+      return new ClassPreloader(listFile, entryIndex, classNames);
+    } catch (Exception e) {
+      System.out.println(String.format("read preload class list %s fail, record a new one: %s", listFile, e));
+      return new ClassPreloader(listFile, entryIndex, null);
+    }
+  }
+
+  /**
+   * LogClassLoader6每定义一个类调用一次
+   */
+  void recordDefinedClass(String name) {
+    if (recording) {
+      definedClasses.add(name);
+    } else if (classNames != null && preloading.get() != null) {
+      preloadedCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * 在premain结束时调用：有列表时启动预加载的线程，训练时注册写列表的shutdown hook
+   */
+  static void start(AgentConfig agentConfig) {
+    LogClassLoader6 defaultLoader = LogClassLoader6.getDEFAULT_LOADER();
+    if (defaultLoader == null || defaultLoader.getClassPreloader() == null) {
+      return;
+    }
+    ClassPreloader classPreloader = defaultLoader.getClassPreloader();
+    if (classPreloader.classNames == null) {
+      classPreloader.recording = true;
+      Thread hook = new Thread(classPreloader::write, "loglearn-preload-record");
+      Runtime.getRuntime().addShutdownHook(hook);
+      return;
+    }
+    int threadCount = Math.max(1, agentConfig.getInt(LogClassLoader6.PRELOAD_THREADS_KEY,
+            Math.min(Runtime.getRuntime().availableProcessors(), 2)));
+    classPreloader.preload(defaultLoader, threadCount);
+  }
+
+  private void preload(ClassLoader loader, int threadCount) {
+    long begin = System.nanoTime();
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger runningThreads = new AtomicInteger(threadCount);
+    for (int i = 0; i < threadCount; i++) {
+      Thread thread = new Thread(() -> {
+        preloading.set(Boolean.TRUE);
+        int index;
+        while ((index = next.getAndIncrement()) < classNames.size()) {
+          try {
+            Class.forName(classNames.get(index), false, loader);
+          } catch (Throwable e) {
+            // 类在这一次运行里可能本来就加载不到（例如依赖的可选jar不在），不影响业务线程
+          }
+        }
+        if (runningThreads.decrementAndGet() == 0) {
+          System.out.println(String.format("preload defined %s of %s listed classes in %.3f ms.",
+                  preloadedCount.get(), classNames.size(), (System.nanoTime() - begin) / 1000000d));
+        }
+      }, "loglearn-preload-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  private void write() {
+    if (definedClasses.isEmpty()) {
+      System.out.println(String.format("no class recorded, skip writing preload class list %s.", listFile));
+      return;
+    }
+    StringBuilder content = new StringBuilder();
+    for (int jarId = 0; jarId < entryIndex.jarCount(); jarId++) {
+      content.append("jar ").append(entryIndex.jarName(jarId))
+              .append(' ').append(entryIndex.jarKey(jarId, 0))
+              .append(' ').append(entryIndex.jarKey(jarId, 2)).append('\n');
+    }
+    // 同一个类只可能定义一次，这里去重只是保险
+    Set<String> classNames = new LinkedHashSet<>(definedClasses);
+    for (String className : classNames) {
+      content.append(className).append('\n');
+    }
+    try {
+      JarIndexCache.write(listFile, ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8)));
+      System.out.println(String.format("write preload class list %s success, %s classes.", listFile, classNames.size()));
+    } catch (IOException e) {
+      System.out.println(String.format("write preload class list %s fail: %s", listFile, e));
+    }
+  }
+
+}
@@ -0,0 +1,180 @@
+package cn.addenda.loglearn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 隔离规则：哪些类、哪些资源由隔离类加载器自己加载。
+ * <p>
+ * 规则是名称前缀，分include和exclude两种，从{@link AgentConfig}的isolation.include和isolation.exclude读取，
+ * 没有配置include时使用{@link #DEFAULT_INCLUDES}。同一个名称命中多条规则时最长的前缀生效，
+ * 例如include org.apache.logging.、exclude org.apache.logging.log4j.jmx.。
+ * <p>
+ * 所有规则在构造时编译成一棵字典树，'.'和'/'视为同一个字符，所以类名（org.slf4j.Logger）和
+ * 资源名（org/slf4j/Logger.class）走同一棵树。匹配只沿着名称走一遍，代价和规则数量无关。
+ */
+public class IsolationRules {
+
+  public static final String INCLUDE_KEY = "isolation.include";
+  public static final String EXCLUDE_KEY = "isolation.exclude";
+
+  public static final List<String> DEFAULT_INCLUDES = Arrays.asList(
+          "org.slf4j.",
+          "org.apache.logging.log4j.",
+          "org.apache.logging.slf4j.",
+          // 异步日志依赖的disruptor
+          "com.lmax.disruptor.",
+          // agent自己的log4j插件，见agent-log4j-plugin
+          "cn.addenda.loglearn.plugin.");
+
+  private static final byte NONE = 0;
+  private static final byte INCLUDE = 1;
+  private static final byte EXCLUDE = 2;
+
+  private static volatile IsolationRules INSTANCE;
+
+  /**
+   * 第i个节点的子节点：labels[i]升序排列，children[i][j]是labels[i][j]对应的子节点
+   */
+  private final char[][] labels;
+  private final int[][] children;
+  private final byte[] decisions;
+
+  public IsolationRules(List<String> includes, List<String> excludes) {
+    Builder builder = new Builder();
+    for (String include : includes) {
+      builder.add(include, INCLUDE);
+    }
+    for (String exclude : excludes) {
+      builder.add(exclude, EXCLUDE);
+    }
+    int nodeCount = builder.nodeLabels.size();
+    labels = new char[nodeCount][];
+    children = new int[nodeCount][];
+    decisions = new byte[nodeCount];
+    for (int node = 0; node < nodeCount; node++) {
+      StringBuilder nodeLabels = builder.nodeLabels.get(node);
+      List<Integer> nodeChildren = builder.nodeChildren.get(node);
+      // 按label排序，匹配时二分查找
+      Integer[] order = new Integer[nodeLabels.length()];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Character.compare(nodeLabels.charAt(a), nodeLabels.charAt(b)));
+      labels[node] = new char[order.length];
+      children[node] = new int[order.length];
+      for (int i = 0; i < order.length; i++) {
+        labels[node][i] = nodeLabels.charAt(order[i]);
+        children[node][i] = nodeChildren.get(order[i]);
+      }
+      decisions[node] = builder.nodeDecisions.get(node);
+    }
+  }
+
+  public static IsolationRules get() {
+    IsolationRules isolationRules = INSTANCE;
+    if (isolationRules == null) {
+      synchronized (IsolationRules.class) {
+        isolationRules = INSTANCE;
+        if (isolationRules == null) {
+          AgentConfig agentConfig = AgentConfig.get();
+          isolationRules = new IsolationRules(
+                  agentConfig.getList(INCLUDE_KEY, DEFAULT_INCLUDES),
+                  agentConfig.getList(EXCLUDE_KEY, new ArrayList<>()));
+          INSTANCE = isolationRules;
+        }
+      }
+    }
+    return isolationRules;
+  }
+
+  /**
+   * @param className 例如org.slf4j.Logger
+   */
+  public boolean isolateClass(String className) {
+    return match(className) == INCLUDE;
+  }
+
+  /**
+   * @param resourceName 例如org/slf4j/Logger.class
+   */
+  public boolean isolateResource(String resourceName) {
+    return match(resourceName) == INCLUDE;
+  }
+
+  private byte match(String name) {
+    byte decision = decisions[0];
+    int node = 0;
+    for (int i = 0; i < name.length(); i++) {
+      node = child(node, normalize(name.charAt(i)));
+      if (node < 0) {
+        break;
+      }
+      if (decisions[node] != NONE) {
+        decision = decisions[node];
+      }
+    }
+    return decision;
+  }
+
+  private int child(int node, char c) {
+    char[] nodeLabels = labels[node];
+    int low = 0;
+    int high = nodeLabels.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      char label = nodeLabels[mid];
+      if (label < c) {
+        low = mid + 1;
+      } else if (label > c) {
+        high = mid - 1;
+      } else {
+        return children[node][mid];
+      }
+    }
+    return -1;
+  }
+
+  private static char normalize(char c) {
+    return c == '/' ? '.' : c;
+  }
+
+  private static class Builder {
+    private final List<StringBuilder> nodeLabels = new ArrayList<>();
+    private final List<List<Integer>> nodeChildren = new ArrayList<>();
+    private final List<Byte> nodeDecisions = new ArrayList<>();
+
+    Builder() {
+      newNode();
+    }
+
+    void add(String prefix, byte decision) {
+      int node = 0;
+      for (int i = 0; i < prefix.length(); i++) {
+        char c = normalize(prefix.charAt(i));
+        int index = nodeLabels.get(node).indexOf(String.valueOf(c));
+        if (index < 0) {
+          int child = newNode();
+          nodeLabels.get(node).append(c);
+          nodeChildren.get(node).add(child);
+          node = child;
+        } else {
+          node = nodeChildren.get(node).get(index);
+        }
+      }
+      // 同一个前缀既include又exclude时，exclude优先
+      if (nodeDecisions.get(node) != EXCLUDE) {
+        nodeDecisions.set(node, decision);
+      }
+    }
+
+    private int newNode() {
+      nodeLabels.add(new StringBuilder());
+      nodeChildren.add(new ArrayList<>());
+      nodeDecisions.add(NONE);
+      return nodeLabels.size() - 1;
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+package cn.addenda.loglearn;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * 一个jar的目录：entry名称、压缩方式、压缩后大小、原始大小、local header的偏移量。
+ * <p>
+ * 直接解析zip的central directory得到，不经过{@link java.util.jar.JarFile}；也可以从{@link JarIndexCache}里读出来。
+ * 不支持zip64，dist/lib/log下的jar都远小于4G。
+ */
+final class JarDirectory {
+
+  static final int END_HEADER_SIGNATURE = 0x06054b50;
+  static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  static final int END_HEADER_LENGTH = 22;
+  static final int CENTRAL_HEADER_LENGTH = 46;
+  static final int LOCAL_HEADER_LENGTH = 30;
+  static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+  final String[] names;
+  final int[] methods;
+  final int[] compressedSizes;
+  final int[] sizes;
+  final int[] offsets;
+
+  JarDirectory(int entryCount) {
+    names = new String[entryCount];
+    methods = new int[entryCount];
+    compressedSizes = new int[entryCount];
+    sizes = new int[entryCount];
+    offsets = new int[entryCount];
+  }
+
+  int size() {
+    return names.length;
+  }
+
+  /**
+   * @param zip 整个jar文件的内容，position和limit之外的内容不会读
+   */
+  static JarDirectory parse(ByteBuffer zip) throws IOException {
+    ByteBuffer buffer = zip.slice().order(ByteOrder.LITTLE_ENDIAN);
+    int endOffset = findEndHeader(buffer);
+    int entryCount = buffer.getShort(endOffset + 10) & 0xFFFF;
+    long centralDirectorySize = buffer.getInt(endOffset + 12) & 0xFFFFFFFFL;
+    long centralDirectoryOffset = buffer.getInt(endOffset + 16) & 0xFFFFFFFFL;
+    if (entryCount == 0xFFFF || centralDirectorySize == 0xFFFFFFFFL || centralDirectoryOffset == 0xFFFFFFFFL) {
+      throw new IOException("zip64 is not supported.");
+    }
+    if (centralDirectoryOffset + centralDirectorySize > endOffset) {
+      throw new IOException("invalid central directory.");
+    }
+
+    JarDirectory jarDirectory = new JarDirectory(entryCount);
+    int position = (int) centralDirectoryOffset;
+    byte[] nameBytes = new byte[256];
+    for (int i = 0; i < entryCount; i++) {
+      if (buffer.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+        throw new IOException(String.format("invalid central header at %s.", position));
+      }
+      int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+      int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+      int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+      if (nameBytes.length < nameLength) {
+        nameBytes = new byte[nameLength];
+      }
+      ((Buffer) buffer).position(position + CENTRAL_HEADER_LENGTH);
+      buffer.get(nameBytes, 0, nameLength);
+
+      jarDirectory.names[i] = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+      jarDirectory.methods[i] = buffer.getShort(position + 10) & 0xFFFF;
+      jarDirectory.compressedSizes[i] = buffer.getInt(position + 20);
+      jarDirectory.sizes[i] = buffer.getInt(position + 24);
+      jarDirectory.offsets[i] = buffer.getInt(position + 42);
+      position += CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+    }
+    return jarDirectory;
+  }
+
+  /**
+   * 读取一个entry的内容：STORED直接拷贝，DEFLATED解压，不经过{@link java.util.jar.JarFile}
+   *
+   * @param zip    整个jar文件的内容
+   * @param offset entry的local header在zip中的偏移量
+   */
+  static byte[] read(ByteBuffer zip, int offset, int method, int compressedSize, int size) throws IOException {
+    ByteBuffer buffer = zip.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int dataOffset = dataOffset(buffer, offset);
+    byte[] bytes = new byte[size];
+    if (method == ZipEntry.STORED) {
+      ((Buffer) buffer).position(dataOffset);
+      buffer.get(bytes);
+      return bytes;
+    }
+    if (method != ZipEntry.DEFLATED) {
+      throw new IOException(String.format("unsupported compression method %s at %s.", method, offset));
+    }
+    // nowrap的Inflater需要在输入末尾多给一个字节，和ZipFile的做法一致
+    byte[] compressed = new byte[compressedSize + 1];
+    ((Buffer) buffer).position(dataOffset);
+    buffer.get(compressed, 0, compressedSize);
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(compressed);
+      int length = 0;
+      while (length < size && !inflater.finished()) {
+        int inflated = inflater.inflate(bytes, length, size - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += inflated;
+      }
+      if (length != size) {
+        throw new IOException(String.format("invalid deflated entry at %s.", offset));
+      }
+      return bytes;
+    } catch (DataFormatException e) {
+      throw new IOException(String.format("invalid deflated entry at %s.", offset), e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * local header后面是名称和extra，它们的长度可能和central directory里记录的不同，以local header为准
+   *
+   * @return entry数据在zip中的起始位置
+   */
+  static int dataOffset(ByteBuffer zip, int offset) throws IOException {
+    ByteBuffer buffer = zip.order() == ByteOrder.LITTLE_ENDIAN ? zip : zip.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.getInt(offset) != LOCAL_HEADER_SIGNATURE) {
+      throw new IOException(String.format("invalid local header at %s.", offset));
+    }
+    int nameLength = buffer.getShort(offset + 26) & 0xFFFF;
+    int extraLength = buffer.getShort(offset + 28) & 0xFFFF;
+    return offset + LOCAL_HEADER_LENGTH + nameLength + extraLength;
+  }
+
+  /**
+   * end of central directory record在文件末尾，后面可能跟着最长65535字节的注释，从后往前找。
+   *
+   * @return end of central directory record在buffer中的偏移量
+   */
+  static int findEndHeader(ByteBuffer buffer) throws IOException {
+    int limit = buffer.limit();
+    int minOffset = Math.max(0, limit - END_HEADER_LENGTH - MAX_COMMENT_LENGTH);
+    for (int offset = limit - END_HEADER_LENGTH; offset >= minOffset; offset--) {
+      if (buffer.getInt(offset) == END_HEADER_SIGNATURE
+              && offset + END_HEADER_LENGTH + (buffer.getShort(offset + 20) & 0xFFFF) == limit) {
+        return offset;
+      }
+    }
+    throw new IOException("end of central directory record not found.");
+  }
+
+}
@@ -0,0 +1,314 @@
+package cn.addenda.loglearn;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 隔离jar的entry索引：entry名称 -> 所属jar的编号，以及entry的压缩方式、大小、local header偏移量。
+ * <p>
+ * 整个索引就是一块ByteBuffer，构造完之后只读：开放寻址（线性探测）的槽位表里放预先算好的名称hash和entry编号，
+ * entry表里放jar编号等定长字段，名称以UTF-8放在最后。查找时先比较hash再比较名称字节，不创建任何对象，
+ * 未命中时也不需要访问任何JarFile。
+ * <p>
+ * 因为不含任何对象引用，这块ByteBuffer可以原样写到磁盘上，下次启动mmap进来直接用，见{@link JarIndexCache}。
+ * 文件头里记录了每个jar的名称、大小、修改时间、end of central directory record的CRC32，用来判断缓存是否过期。
+ * <p>
+ * 同名entry（例如多个jar里都有的META-INF/MANIFEST.MF）按jar的顺序依次插入，
+ * 同一个名称的探测序列上先出现的就是先插入的，所以{@link #find(String)}返回的是第一个jar里的entry，
+ * {@link #findNext(String, int)}可以按jar的顺序继续找后面的。
+ * <p>
+ * 格式（大端）：
+ * <pre>
+ * int magic, int version,
+ * int jarCount, jarCount * (long length, long lastModified, long endHeaderCrc, short nameLength, byte[nameLength] name),
+ * int entryCount, int capacity, int namesLength,
+ * capacity * (int hash, int entryId + 1)，0表示空槽位,
+ * entryCount * (int nameOffset, short nameLength, short jarId, short method, int compressedSize, int size, int offset),
+ * byte[namesLength] names
+ * </pre>
+ * 从磁盘读进来的索引可能被截断或者只写了一部分，{@link #wrap(ByteBuffer)}检查长度、每个槽位和entry的范围，
+ * 不对时抛IOException，由调用方重新解析jar，不会等到{@link #find(String)}时才越界。
+ */
+final class JarEntryIndex {
+
+  private static final int MAGIC = 0x4C4C4958;
+  private static final int VERSION = 2;
+  private static final int SLOT_LENGTH = 8;
+  private static final int ENTRY_LENGTH = 22;
+
+  private final ByteBuffer buffer;
+  private final String[] jarNames;
+  private final long[] jarKeys;
+  private final int entryCount;
+  private final int mask;
+  private final int slotsOffset;
+  private final int entriesOffset;
+  private final int namesOffset;
+
+  private JarEntryIndex(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.limit() < 12 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      throw new IOException("invalid jar entry index.");
+    }
+    int jarCount = buffer.getInt(8);
+    if (jarCount < 0 || jarCount > (buffer.limit() - 12) / 26) {
+      throw new IOException("invalid jar entry index jar count.");
+    }
+    int position = 12;
+    jarNames = new String[jarCount];
+    jarKeys = new long[jarCount * 3];
+    for (int jarId = 0; jarId < jarCount; jarId++) {
+      jarKeys[jarId * 3] = buffer.getLong(position);
+      jarKeys[jarId * 3 + 1] = buffer.getLong(position + 8);
+      jarKeys[jarId * 3 + 2] = buffer.getLong(position + 16);
+      int nameLength = buffer.getShort(position + 24) & 0xFFFF;
+      jarNames[jarId] = decode(buffer, position + 26, nameLength);
+      position += 26 + nameLength;
+    }
+    entryCount = buffer.getInt(position);
+    int capacity = buffer.getInt(position + 4);
+    int namesLength = buffer.getInt(position + 8);
+    // 至少留一个空槽位，未命中时探测才能结束
+    if (Integer.bitCount(capacity) != 1 || entryCount < 0 || entryCount >= capacity || namesLength < 0) {
+      throw new IOException("invalid jar entry index capacity.");
+    }
+    mask = capacity - 1;
+    slotsOffset = position + 12;
+    long _entriesOffset = slotsOffset + (long) capacity * SLOT_LENGTH;
+    long _namesOffset = _entriesOffset + (long) entryCount * ENTRY_LENGTH;
+    if (_namesOffset + namesLength != buffer.limit()) {
+      throw new IOException("truncated jar entry index.");
+    }
+    entriesOffset = (int) _entriesOffset;
+    namesOffset = (int) _namesOffset;
+    check(jarCount, capacity, namesLength);
+  }
+
+  /**
+   * 每个entry的名称都在names里、jar编号有效，每个槽位的entry编号在[1, entryCount]之间，并且每个entry正好被一个槽位引用
+   */
+  private void check(int jarCount, int capacity, int namesLength) throws IOException {
+    for (int entryId = 0; entryId < entryCount; entryId++) {
+      int entryPosition = entriesOffset + entryId * ENTRY_LENGTH;
+      int nameOffset = buffer.getInt(entryPosition);
+      int nameLength = buffer.getShort(entryPosition + 4) & 0xFFFF;
+      int jarId = buffer.getShort(entryPosition + 6);
+      if (nameOffset < 0 || (long) nameOffset + nameLength > namesLength || jarId < 0 || jarId >= jarCount) {
+        throw new IOException("invalid jar entry index entry " + entryId + ".");
+      }
+    }
+    int usedSlots = 0;
+    for (int slot = 0; slot < capacity; slot++) {
+      int entryRef = buffer.getInt(slotsOffset + slot * SLOT_LENGTH + 4);
+      if (entryRef < 0 || entryRef > entryCount) {
+        throw new IOException("invalid jar entry index slot " + slot + ".");
+      }
+      if (entryRef != 0) {
+        usedSlots++;
+      }
+    }
+    if (usedSlots != entryCount) {
+      throw new IOException("invalid jar entry index slot count.");
+    }
+  }
+
+  static JarEntryIndex wrap(ByteBuffer buffer) throws IOException {
+    return new JarEntryIndex(buffer);
+  }
+
+  /**
+   * @param jarNames jar的文件名，例如log4j-core-2.17.2.jar
+   * @param jarKeys  每个jar 3个long：大小、修改时间、end of central directory record的CRC32
+   */
+  static JarEntryIndex build(List<String> jarNames, long[] jarKeys, List<JarDirectory> jarDirectories) {
+    int entryCount = 0;
+    int namesLength = 0;
+    int headerLength = 12 + 12;
+    byte[][] jarNameBytes = new byte[jarNames.size()][];
+    for (int jarId = 0; jarId < jarNames.size(); jarId++) {
+      jarNameBytes[jarId] = jarNames.get(jarId).getBytes(StandardCharsets.UTF_8);
+      headerLength += 26 + jarNameBytes[jarId].length;
+      for (String name : jarDirectories.get(jarId).names) {
+        // JarFile.getJarEntry("a/b")也能找到目录"a/b/"，这里保持一致：目录登记两次，名称共用
+        entryCount += name.endsWith("/") ? 2 : 1;
+        namesLength += name.getBytes(StandardCharsets.UTF_8).length;
+      }
+    }
+    int capacity = tableSizeFor(Math.max(entryCount, 1) * 2);
+
+    ByteBuffer buffer = ByteBuffer.allocate(headerLength + capacity * SLOT_LENGTH + entryCount * ENTRY_LENGTH + namesLength);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(jarNames.size());
+    for (int jarId = 0; jarId < jarNames.size(); jarId++) {
+      buffer.putLong(jarKeys[jarId * 3]).putLong(jarKeys[jarId * 3 + 1]).putLong(jarKeys[jarId * 3 + 2]);
+      buffer.putShort((short) jarNameBytes[jarId].length).put(jarNameBytes[jarId]);
+    }
+    buffer.putInt(entryCount).putInt(capacity).putInt(namesLength);
+
+    int slotsOffset = buffer.position();
+    int entriesOffset = slotsOffset + capacity * SLOT_LENGTH;
+    int namesOffset = entriesOffset + entryCount * ENTRY_LENGTH;
+    int mask = capacity - 1;
+    int entryId = 0;
+    int nameOffset = 0;
+    for (int jarId = 0; jarId < jarDirectories.size(); jarId++) {
+      JarDirectory jarDirectory = jarDirectories.get(jarId);
+      for (int i = 0; i < jarDirectory.size(); i++) {
+        String name = jarDirectory.names[i];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        ((Buffer) buffer).position(namesOffset + nameOffset);
+        buffer.put(nameBytes);
+
+        int aliasCount = name.endsWith("/") ? 2 : 1;
+        for (int alias = 0; alias < aliasCount; alias++) {
+          String aliasName = alias == 0 ? name : name.substring(0, name.length() - 1);
+          int entryPosition = entriesOffset + entryId * ENTRY_LENGTH;
+          buffer.putInt(entryPosition, nameOffset);
+          buffer.putShort(entryPosition + 4, (short) (nameBytes.length - alias));
+          buffer.putShort(entryPosition + 6, (short) jarId);
+          buffer.putShort(entryPosition + 8, (short) jarDirectory.methods[i]);
+          buffer.putInt(entryPosition + 10, jarDirectory.compressedSizes[i]);
+          buffer.putInt(entryPosition + 14, jarDirectory.sizes[i]);
+          buffer.putInt(entryPosition + 18, jarDirectory.offsets[i]);
+
+          int hash = hash(aliasName);
+          int slot = hash & mask;
+          while (buffer.getInt(slotsOffset + slot * SLOT_LENGTH + 4) != 0) {
+            slot = (slot + 1) & mask;
+          }
+          buffer.putInt(slotsOffset + slot * SLOT_LENGTH, hash);
+          buffer.putInt(slotsOffset + slot * SLOT_LENGTH + 4, entryId + 1);
+          entryId++;
+        }
+        nameOffset += nameBytes.length;
+      }
+    }
+    ((Buffer) buffer).clear();
+    try {
+      return new JarEntryIndex(buffer);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return 第一个匹配的槽位，不存在时返回-1
+   */
+  int find(String name) {
+    int hash = hash(name);
+    return probe(name, hash, hash & mask);
+  }
+
+  /**
+   * @return slot之后下一个同名的槽位，不存在时返回-1
+   */
+  int findNext(String name, int slot) {
+    return probe(name, hash(name), (slot + 1) & mask);
+  }
+
+  int jarId(int slot) {
+    return buffer.getShort(entryPosition(slot) + 6);
+  }
+
+  int method(int slot) {
+    return buffer.getShort(entryPosition(slot) + 8) & 0xFFFF;
+  }
+
+  int compressedSize(int slot) {
+    return buffer.getInt(entryPosition(slot) + 10);
+  }
+
+  int size(int slot) {
+    return buffer.getInt(entryPosition(slot) + 14);
+  }
+
+  int offset(int slot) {
+    return buffer.getInt(entryPosition(slot) + 18);
+  }
+
+  int size() {
+    return entryCount;
+  }
+
+  int jarCount() {
+    return jarNames.length;
+  }
+
+  String jarName(int jarId) {
+    return jarNames[jarId];
+  }
+
+  /**
+   * @param i 0：大小，1：修改时间，2：end of central directory record的CRC32
+   */
+  long jarKey(int jarId, int i) {
+    return jarKeys[jarId * 3 + i];
+  }
+
+  ByteBuffer buffer() {
+    return buffer.duplicate();
+  }
+
+  private int entryPosition(int slot) {
+    int entryId = buffer.getInt(slotsOffset + slot * SLOT_LENGTH + 4) - 1;
+    return entriesOffset + entryId * ENTRY_LENGTH;
+  }
+
+  private int probe(String name, int hash, int slot) {
+    ByteBuffer _buffer = buffer;
+    int entryRef;
+    while ((entryRef = _buffer.getInt(slotsOffset + slot * SLOT_LENGTH + 4)) != 0) {
+      if (_buffer.getInt(slotsOffset + slot * SLOT_LENGTH) == hash) {
+        int entryPosition = entriesOffset + (entryRef - 1) * ENTRY_LENGTH;
+        int nameOffset = namesOffset + _buffer.getInt(entryPosition);
+        int nameLength = _buffer.getShort(entryPosition + 4) & 0xFFFF;
+        if (nameEquals(name, _buffer, nameOffset, nameLength)) {
+          return slot;
+        }
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * ASCII的名称逐字节比较，不创建对象；含非ASCII字符时解码后比较
+   */
+  private static boolean nameEquals(String name, ByteBuffer buffer, int offset, int length) {
+    int nameLength = name.length();
+    if (nameLength > length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      byte b = buffer.get(offset + i);
+      if (b < 0) {
+        return name.equals(decode(buffer, offset, length));
+      }
+      if (i >= nameLength || name.charAt(i) != b) {
+        return false;
+      }
+    }
+    return nameLength == length;
+  }
+
+  private static String decode(ByteBuffer buffer, int offset, int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = buffer.get(offset + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int hash(String name) {
+    int h = name.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int tableSizeFor(int n) {
+    int capacity = Integer.highestOneBit(n);
+    return capacity < n ? capacity << 1 : capacity;
+  }
+
+}
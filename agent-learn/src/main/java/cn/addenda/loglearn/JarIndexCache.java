@@ -0,0 +1,271 @@
+package cn.addenda.loglearn;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+
+/**
+ * {@link JarEntryIndex}的磁盘缓存，放在jar的旁边：lib/log/jar-index.idx。
+ * <p>
+ * 缓存用每个jar的名称、大小、修改时间、end of central directory record的CRC32作为key，任一jar变化（增加、删除、替换）
+ * 都会重新解析全部jar的central directory并重写缓存。命中时每个jar只需要读末尾的几十个字节，
+ * 再把缓存文件mmap进来直接当索引用，不用解析zip目录，也不用为每个entry创建String。
+ */
+final class JarIndexCache {
+
+  static final String FILE_NAME = "jar-index.idx";
+
+  private JarIndexCache() {
+  }
+
+  /**
+   * 读取jar的索引：缓存有效时直接mmap缓存文件，否则解析jar并重写缓存。
+   * 解析失败的jar会被跳过，所以返回的索引里的jar可能比jarSourceFiles少，以{@link JarEntryIndex#jarName(int)}为准。
+   * <p>
+   * 缓存未命中时并行解析每个jar的central directory，见{@link #scan(List, boolean, JarTask)}。
+   */
+  static JarEntryIndex load(File logLibDir, List<File> jarSourceFiles) {
+    // 每个jar只读末尾几十个字节，创建线程池的开销比它大，串行执行
+    List<long[]> jarKeys = scan(jarSourceFiles, false, i -> jarKey(jarSourceFiles.get(i)));
+    List<File> _jarSourceFiles = new ArrayList<>();
+    List<long[]> _jarKeys = new ArrayList<>();
+    for (int i = 0; i < jarSourceFiles.size(); i++) {
+      if (jarKeys.get(i) != null) {
+        _jarSourceFiles.add(jarSourceFiles.get(i));
+        _jarKeys.add(jarKeys.get(i));
+      }
+    }
+
+    File indexFile = new File(logLibDir, FILE_NAME);
+    List<String> jarNames = new ArrayList<>();
+    for (File jarSourceFile : _jarSourceFiles) {
+      jarNames.add(jarSourceFile.getName());
+    }
+    JarEntryIndex entryIndex = read(indexFile, jarNames, _jarKeys);
+    if (entryIndex != null) {
+      System.out.println(String.format("read jar index %s success.", indexFile));
+      return entryIndex;
+    }
+
+    List<JarDirectory> jarDirectories = scan(_jarSourceFiles, true, i -> {
+      File jarSourceFile = _jarSourceFiles.get(i);
+      try (FileChannel jarChannel = FileChannel.open(jarSourceFile.toPath(), StandardOpenOption.READ)) {
+        return JarDirectory.parse(jarChannel.map(FileChannel.MapMode.READ_ONLY, 0, jarChannel.size()));
+      }
+    });
+    return build(indexFile, jarNames, _jarKeys, jarDirectories);
+  }
+
+  /**
+   * 跳过解析失败（jarDirectories里为null）的jar，构建索引并写缓存
+   */
+  static JarEntryIndex build(File indexFile, List<String> jarNames, List<long[]> jarKeys, List<JarDirectory> jarDirectories) {
+    List<String> parsedJarNames = new ArrayList<>();
+    List<JarDirectory> parsedJarDirectories = new ArrayList<>();
+    List<long[]> parsedJarKeys = new ArrayList<>();
+    for (int i = 0; i < jarNames.size(); i++) {
+      if (jarDirectories.get(i) != null) {
+        parsedJarNames.add(jarNames.get(i));
+        parsedJarDirectories.add(jarDirectories.get(i));
+        parsedJarKeys.add(jarKeys.get(i));
+      }
+    }
+    long[] _jarKeys = new long[parsedJarKeys.size() * 3];
+    for (int i = 0; i < parsedJarKeys.size(); i++) {
+      System.arraycopy(parsedJarKeys.get(i), 0, _jarKeys, i * 3, 3);
+    }
+    JarEntryIndex entryIndex = JarEntryIndex.build(parsedJarNames, _jarKeys, parsedJarDirectories);
+    write(indexFile, entryIndex);
+    return entryIndex;
+  }
+
+  /**
+   * 对每个jar执行task（参数是jar在jars里的下标），结果按jars的顺序返回，和串行执行的结果一样：同名entry仍然按jar的顺序排在前面的优先。
+   * 某个jar失败时打印异常，结果为null，不影响其他jar。
+   * <p>
+   * parallel为true、loader.scanParallelism大于1、jar多于1个时，在一个临时的ForkJoinPool里并行执行，执行完关闭；
+   * loader.scanParallelism默认为1（串行）：创建ForkJoinPool和线程的开销在冷启动的JVM里比解析jar本身还大，
+   * 单核上测出来并行比串行慢，多核上的收益没有测过，需要时再配置。
+   *
+   * @param jars jar文件，或者单文件发布时内层jar的名称，只用来打印
+   */
+  static <T> List<T> scan(List<?> jars, boolean parallel, JarTask<T> task) {
+    int parallelism = !parallel ? 1 : Math.min(jars.size(), AgentConfig.get().getInt(LogClassLoader6.SCAN_PARALLELISM_KEY, 1));
+    List<T> results = new ArrayList<>(Collections.nCopies(jars.size(), null));
+    if (parallelism <= 1) {
+      for (int i = 0; i < jars.size(); i++) {
+        results.set(i, apply(jars, i, task));
+      }
+      return results;
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<ForkJoinTask<T>> forkJoinTasks = new ArrayList<>();
+      for (int i = 0; i < jars.size(); i++) {
+        int _i = i;
+        forkJoinTasks.add(pool.submit(() -> apply(jars, _i, task)));
+      }
+      for (int i = 0; i < jars.size(); i++) {
+        results.set(i, forkJoinTasks.get(i).join());
+      }
+      return results;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static <T> T apply(List<?> jars, int i, JarTask<T> task) {
+    try {
+      return task.apply(i);
+    } catch (Exception e) {
+      System.out.println(String.format("jar %s load fail.", jars.get(i)));
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  interface JarTask<T> {
+    T apply(int i) throws Exception;
+  }
+
+  /**
+   * @param jarNames jar的名称，和jarKeys一一对应
+   * @return 缓存不存在、过期或者损坏时返回null
+   */
+  static JarEntryIndex read(File indexFile, List<String> jarNames, List<long[]> jarKeys) {
+    if (!indexFile.isFile()) {
+      return null;
+    }
+    try (FileChannel indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+      // mapping在channel关闭后依然有效
+      JarEntryIndex entryIndex = JarEntryIndex.wrap(indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size()));
+      if (entryIndex.jarCount() != jarNames.size()) {
+        System.out.println(String.format("jar index %s is stale.", indexFile));
+        return null;
+      }
+      for (int jarId = 0; jarId < jarNames.size(); jarId++) {
+        long[] jarKey = jarKeys.get(jarId);
+        if (!jarNames.get(jarId).equals(entryIndex.jarName(jarId))
+                || jarKey[0] != entryIndex.jarKey(jarId, 0)
+                || jarKey[1] != entryIndex.jarKey(jarId, 1)
+                || jarKey[2] != entryIndex.jarKey(jarId, 2)) {
+          System.out.println(String.format("jar index %s is stale.", indexFile));
+          return null;
+        }
+      }
+      return entryIndex;
+    } catch (Exception e) {
+      // 缓存文件损坏，当作没有缓存
+      System.out.println(String.format("read jar index %s fail: %s", indexFile, e));
+      return null;
+    }
+  }
+
+  /**
+   * 目录只读时不影响使用，下次启动继续解析jar
+   */
+  static void write(File indexFile, JarEntryIndex entryIndex) {
+    try {
+      write(indexFile, entryIndex.buffer());
+      System.out.println(String.format("write jar index %s success.", indexFile));
+    } catch (IOException e) {
+      System.out.println(String.format("write jar index %s fail: %s", indexFile, e));
+    }
+  }
+
+  /**
+   * 先写临时文件再改名，{@link ClassArchive}、{@link ClassPreloader}也用它写文件。
+   * 临时文件每次单独创建：多个进程同时启动时各写各的，保证别人读到的要么是旧文件要么是完整的新文件
+   */
+  static void write(File file, ByteBuffer buffer) throws IOException {
+    Path tmpFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(tmpFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmpFile);
+      throw e;
+    }
+  }
+
+  /**
+   * @return lib/log目录下的jar，按名称排序，保证每次启动jar的顺序一致，缓存才能命中
+   */
+  static List<File> jarSourceFiles(File logLibDir) {
+    List<File> jarSourceFiles = new ArrayList<>();
+    if (logLibDir.exists() && logLibDir.isDirectory()) {
+      String[] list = logLibDir.list((dir, name) -> name.endsWith(".jar"));
+      if (list != null) {
+        Arrays.sort(list);
+        for (String s : list) {
+          jarSourceFiles.add(new File(logLibDir, s));
+        }
+      }
+    }
+    return jarSourceFiles;
+  }
+
+  /**
+   * @return 大小、修改时间、end of central directory record的CRC32。
+   * end of central directory record里有entry数量、central directory的大小和偏移量，jar内容变了它基本都会变。
+   */
+  static long[] jarKey(File jarSourceFile) throws IOException {
+    try (FileChannel jarChannel = FileChannel.open(jarSourceFile.toPath(), StandardOpenOption.READ)) {
+      long jarLength = jarChannel.size();
+      // 绝大多数jar没有注释，先只读最后22个字节
+      ByteBuffer tail = readTail(jarChannel, (int) Math.min(jarLength, JarDirectory.END_HEADER_LENGTH));
+      if (tail.getInt(0) != JarDirectory.END_HEADER_SIGNATURE || tail.getShort(20) != 0) {
+        tail = readTail(jarChannel, (int) Math.min(jarLength, JarDirectory.END_HEADER_LENGTH + JarDirectory.MAX_COMMENT_LENGTH));
+      }
+      return new long[]{jarLength, jarSourceFile.lastModified(), endHeaderCrc(tail)};
+    }
+  }
+
+  /**
+   * 单文件发布时内层jar的key，修改时间取agent jar的
+   *
+   * @param jarContent 内层jar的全部内容
+   */
+  static long[] jarKey(ByteBuffer jarContent, long lastModified) throws IOException {
+    return new long[]{jarContent.limit(), lastModified, endHeaderCrc(jarContent.duplicate().order(ByteOrder.LITTLE_ENDIAN))};
+  }
+
+  private static long endHeaderCrc(ByteBuffer tail) throws IOException {
+    ByteBuffer endHeader = tail.duplicate();
+    ((Buffer) endHeader).position(JarDirectory.findEndHeader(tail));
+    CRC32 crc32 = new CRC32();
+    crc32.update(endHeader);
+    return crc32.getValue();
+  }
+
+  private static ByteBuffer readTail(FileChannel jarChannel, int tailLength) throws IOException {
+    ByteBuffer tail = ByteBuffer.allocate(tailLength).order(ByteOrder.LITTLE_ENDIAN);
+    long position = jarChannel.size() - tailLength;
+    while (tail.hasRemaining()) {
+      if (jarChannel.read(tail, position + tail.position()) < 0) {
+        throw new IOException("unexpected end of jar.");
+      }
+    }
+    ((Buffer) tail).flip();
+    return tail;
+  }
+
+}
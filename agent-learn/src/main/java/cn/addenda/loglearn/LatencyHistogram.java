@@ -0,0 +1,155 @@
+package cn.addenda.loglearn;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 纳秒耗时的直方图，所有计数都是{@link LongAdder}，多个线程同时记录时没有竞争。
+ * <p>
+ * 桶按2的幂划分，每个2的幂再分成4个子桶，所以分位数的误差在25%以内；小于4ns的耗时各占一个桶。
+ * 一共248个桶，覆盖正的long的全部范围。
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 2;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  /**
+   * 正的long最高位是第62位
+   */
+  private static final int BUCKET_COUNT = (62 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+  public LatencyHistogram() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    buckets[bucket(nanos)].increment();
+    count.increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulate(nanos);
+  }
+
+  /**
+   * 各个计数分别读取，记录和读取同时进行时快照里的数字可能相差几次记录
+   */
+  public Snapshot snapshot() {
+    long[] counts = new long[BUCKET_COUNT];
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets[i].sum();
+      total += counts[i];
+    }
+    long max = maxNanos.get();
+    return new Snapshot(count.sum(), totalNanos.sum(), max,
+            percentile(counts, total, 0.5, max), percentile(counts, total, 0.9, max),
+            percentile(counts, total, 0.99, max), percentile(counts, total, 0.999, max));
+  }
+
+  /**
+   * @return 分位数所在桶的上界，不超过最大值
+   */
+  private static long percentile(long[] counts, long total, double quantile, long max) {
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max);
+      }
+    }
+    return max;
+  }
+
+  static int bucket(long nanos) {
+    if (nanos < SUB_BUCKET_COUNT) {
+      return (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long lowerBound(int bucket) {
+    if (bucket < SUB_BUCKET_COUNT) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+    long subBucket = bucket % SUB_BUCKET_COUNT;
+    return (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  static long upperBound(int bucket) {
+    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowerBound(bucket + 1) - 1;
+  }
+
+  /**
+   * 直方图某一时刻的快照，通过JMX暴露时转换成CompositeData
+   */
+  public static final class Snapshot {
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+
+    Snapshot(long count, long totalNanos, long maxNanos, long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos) {
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+      this.p50Nanos = p50Nanos;
+      this.p90Nanos = p90Nanos;
+      this.p99Nanos = p99Nanos;
+      this.p999Nanos = p999Nanos;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    public long getP50Nanos() {
+      return p50Nanos;
+    }
+
+    public long getP90Nanos() {
+      return p90Nanos;
+    }
+
+    public long getP99Nanos() {
+      return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+      return p999Nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("count=%s, total=%.3fms, p50=%sns, p99=%sns, max=%sns",
+              count, totalNanos / 1e6, p50Nanos, p99Nanos, maxNanos);
+    }
+  }
+
+}
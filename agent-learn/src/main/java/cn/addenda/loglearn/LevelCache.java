@@ -0,0 +1,139 @@
+package cn.addenda.loglearn;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * 在agent侧缓存一个隔离Logger开启了哪些级别，被级别过滤掉的日志调用直接返回，不用进入隔离类加载器，也不用准备参数。
+ * 每个{@link LoggerBridge}、{@link AgentLogger}一个。
+ * <p>
+ * 隔离的LoggerContext配置变化（monitorInterval重新加载、Configurator.setLevel等）时，
+ * 通过cn.addenda.loglearn.plugin.AgentLogSink注册的listener把全局的代数加一，所有缓存随之失效，下一次调用时重新读取。
+ * 配置里有context级别的filter（例如RateLimitFilter）时，开启了的级别还要交给隔离侧判断；filter不会返回ACCEPT时，
+ * 没有开启的级别仍然可以直接返回，filter可能返回ACCEPT时不缓存。
+ * <p>
+ * logger.levelCache=false或者lib/log下没有agent-log4j-plugin时不缓存。
+ */
+final class LevelCache {
+
+  static final int TRACE = 0;
+  static final int DEBUG = 1;
+  static final int INFO = 2;
+  static final int WARN = 3;
+  static final int ERROR = 4;
+
+  /**
+   * 缓存无效：代数对不上，或者只能交给隔离侧判断
+   */
+  private static final int UNKNOWN = -1;
+  /**
+   * 是否开启只取决于级别，和AgentLogSink.EXACT一致
+   */
+  private static final int EXACT = 1 << 5;
+
+  private static final LevelCache DISABLED = new LevelCache(null);
+
+  private static final MethodHandle GET_LOGGER;
+  private static final MethodHandle ENABLED_LEVELS;
+
+  /**
+   * 配置的代数，从1开始，配置变化时加一
+   */
+  private static volatile int generation = 1;
+
+  static {
+    MethodHandle getLogger = null;
+    MethodHandle enabledLevels = null;
+    if (AgentConfig.get().getBoolean(MyLoggerFactory.LEVEL_CACHE_KEY, true)) {
+      try {
+        ClassLoader isolatedLoader = MyLoggerFactory.getLoggerInterface().getClassLoader();
+        Class<?> sinkClass = Class.forName("cn.addenda.loglearn.plugin.AgentLogSink", true, isolatedLoader);
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        getLogger = lookup.findStatic(sinkClass, "getLogger", MethodType.methodType(Object.class, String.class, Object.class));
+        enabledLevels = lookup.findStatic(sinkClass, "enabledLevels", MethodType.methodType(int.class, Object.class));
+        MethodHandle addConfigurationListener = lookup.findStatic(sinkClass, "addConfigurationListener",
+                MethodType.methodType(void.class, Object.class, Runnable.class));
+        Runnable invalidate = LevelCache::invalidate;
+        addConfigurationListener.invokeExact(MyLoggerFactory.getLoggerContext(), invalidate);
+      } catch (Throwable e) {
+        System.out.println(String.format("isolated logger level cache is disabled: %s", e));
+        getLogger = null;
+        enabledLevels = null;
+      }
+    }
+    GET_LOGGER = getLogger;
+    ENABLED_LEVELS = enabledLevels;
+  }
+
+  /**
+   * 隔离侧的org.apache.logging.log4j.core.Logger，为null时不缓存
+   */
+  private final Object logger;
+  /**
+   * 高32位是代数，低32位是开启的级别（第i位对应编号i）和EXACT，一个volatile读就能拿到一致的两个值
+   */
+  private volatile long state;
+
+  private LevelCache(Object logger) {
+    this.logger = logger;
+  }
+
+  static LevelCache forLogger(String name) {
+    if (GET_LOGGER == null) {
+      return DISABLED;
+    }
+    try {
+      return new LevelCache((Object) GET_LOGGER.invokeExact(name, MyLoggerFactory.getLoggerContext()));
+    } catch (Throwable e) {
+      System.out.println(String.format("isolated logger %s level cache is disabled: %s", name, e));
+      return DISABLED;
+    }
+  }
+
+  private static synchronized void invalidate() {
+    generation++;
+  }
+
+  /**
+   * @return 确定没有开启时返回true；开启了或者不确定时返回false，由隔离侧再判断一次
+   */
+  boolean isDisabled(int level) {
+    int enabledLevels = enabledLevels();
+    return enabledLevels != UNKNOWN && (enabledLevels & (1 << level)) == 0;
+  }
+
+  /**
+   * @return 确定开启时返回1，确定没有开启时返回0，不确定时返回-1
+   */
+  int isEnabled(int level) {
+    int enabledLevels = enabledLevels();
+    if (enabledLevels == UNKNOWN) {
+      return -1;
+    }
+    if ((enabledLevels & (1 << level)) == 0) {
+      return 0;
+    }
+    return (enabledLevels & EXACT) != 0 ? 1 : -1;
+  }
+
+  private int enabledLevels() {
+    if (logger == null) {
+      return UNKNOWN;
+    }
+    long _state = state;
+    // 先读代数再读级别：读级别之后配置又变了的话，代数已经加一，这次写进去的缓存会失效
+    int _generation = generation;
+    if ((int) (_state >>> 32) == _generation) {
+      return (int) _state;
+    }
+    try {
+      int enabledLevels = (int) ENABLED_LEVELS.invokeExact(logger);
+      state = ((long) _generation << 32) | (enabledLevels & 0xFFFFFFFFL);
+      return enabledLevels;
+    } catch (Throwable e) {
+      return UNKNOWN;
+    }
+  }
+
+}
@@ -0,0 +1,140 @@
+package cn.addenda.loglearn;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link LogClassLoader6}的统计：定义的类、资源查找的命中和未命中、从jar读取的字节，以及它们的耗时。
+ * <p>
+ * 计数都是{@link LongAdder}、{@link LatencyHistogram}，记录时不加锁，多个线程同时加载类也没有竞争；
+ * loadClass的快速路径（已经加载过的类）不记录，只有真正去jar里找类时才记录。
+ * <p>
+ * 通过{@link #register(AgentConfig)}注册到platform MBeanServer。创建platform MBeanServer要加载一批JMX的类，
+ * 所以在premain结束后放到后台线程里注册，不算进启动时间。
+ * 默认不注册，loader.jmx=true时才注册：JBoss/WildFly这类容器要在自己设置好javax.management.builder.initial之后
+ * 才创建platform MBeanServer，agent提前创建会让容器启动失败。
+ */
+public class LoaderMetrics implements LoaderMetricsMXBean {
+
+  public static final String JMX_KEY = "loader.jmx";
+  public static final String OBJECT_NAME = "cn.addenda.loglearn:type=LogClassLoader";
+
+  private final LongAdder definedClassCount = new LongAdder();
+  private final LongAdder classNotFoundCount = new LongAdder();
+  private final LatencyHistogram findClass = new LatencyHistogram();
+
+  private final LongAdder resourceHitCount = new LongAdder();
+  private final LongAdder resourceMissCount = new LongAdder();
+  private final LatencyHistogram resourceLookup = new LatencyHistogram();
+  private final LongAdder resourceCacheHitCount = new LongAdder();
+
+  private final LongAdder jarReadByteCount = new LongAdder();
+  private final LatencyHistogram jarRead = new LatencyHistogram();
+
+  void recordFindClass(long nanos, boolean found) {
+    if (found) {
+      definedClassCount.increment();
+    } else {
+      classNotFoundCount.increment();
+    }
+    findClass.record(nanos);
+  }
+
+  /**
+   * 不用查jar就能确定找不到的类，不计耗时
+   */
+  void recordClassNotFound() {
+    classNotFoundCount.increment();
+  }
+
+  void recordResourceLookup(long nanos, boolean hit) {
+    if (hit) {
+      resourceHitCount.increment();
+    } else {
+      resourceMissCount.increment();
+    }
+    resourceLookup.record(nanos);
+  }
+
+  void recordResourceCacheHit() {
+    resourceCacheHitCount.increment();
+  }
+
+  void recordJarRead(long nanos, int byteCount) {
+    jarReadByteCount.add(byteCount);
+    jarRead.record(nanos);
+  }
+
+  @Override
+  public long getDefinedClassCount() {
+    return definedClassCount.sum();
+  }
+
+  @Override
+  public long getClassNotFoundCount() {
+    return classNotFoundCount.sum();
+  }
+
+  @Override
+  public LatencyHistogram.Snapshot getFindClass() {
+    return findClass.snapshot();
+  }
+
+  @Override
+  public long getResourceHitCount() {
+    return resourceHitCount.sum();
+  }
+
+  @Override
+  public long getResourceMissCount() {
+    return resourceMissCount.sum();
+  }
+
+  @Override
+  public LatencyHistogram.Snapshot getResourceLookup() {
+    return resourceLookup.snapshot();
+  }
+
+  @Override
+  public long getResourceCacheHitCount() {
+    return resourceCacheHitCount.sum();
+  }
+
+  @Override
+  public long getJarReadByteCount() {
+    return jarReadByteCount.sum();
+  }
+
+  @Override
+  public LatencyHistogram.Snapshot getJarRead() {
+    return jarRead.snapshot();
+  }
+
+  /**
+   * loader.jmx=true时，在后台线程里把{@link LogClassLoader6#getDEFAULT_LOADER()}的统计注册为MBean
+   */
+  static void register(AgentConfig agentConfig) {
+    LogClassLoader6 defaultLoader = LogClassLoader6.getDEFAULT_LOADER();
+    if (defaultLoader == null || !agentConfig.getBoolean(JMX_KEY, false)) {
+      return;
+    }
+    Thread thread = new Thread(() -> {
+      try {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(OBJECT_NAME);
+        if (!mBeanServer.isRegistered(objectName)) {
+          mBeanServer.registerMBean(defaultLoader.getMetrics(), objectName);
+          System.out.println(String.format("register MBean %s success.", OBJECT_NAME));
+        }
+      } catch (Exception e) {
+        System.out.println(String.format("register MBean %s fail.", OBJECT_NAME));
+        e.printStackTrace();
+      }
+    }, "loglearn-jmx-register");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+}
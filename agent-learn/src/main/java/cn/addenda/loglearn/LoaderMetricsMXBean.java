@@ -0,0 +1,47 @@
+package cn.addenda.loglearn;
+
+/**
+ * 隔离类加载器的统计，注册为{@link LoaderMetrics#OBJECT_NAME}，耗时的直方图转换成CompositeData
+ */
+public interface LoaderMetricsMXBean {
+
+  /**
+   * 隔离类加载器自己定义的类的数量
+   */
+  long getDefinedClassCount();
+
+  /**
+   * 命中隔离规则、但lib/log下找不到的类的数量
+   */
+  long getClassNotFoundCount();
+
+  /**
+   * doFindClass的耗时：从jar读取class字节加上defineClass，defineClass时加载父类、接口的耗时也算在里面
+   */
+  LatencyHistogram.Snapshot getFindClass();
+
+  long getResourceHitCount();
+
+  long getResourceMissCount();
+
+  /**
+   * getResource、getResources的耗时，包括命中和未命中
+   */
+  LatencyHistogram.Snapshot getResourceLookup();
+
+  /**
+   * 读取资源URL的内容时命中{@link ResourceCache}的次数
+   */
+  long getResourceCacheHitCount();
+
+  /**
+   * 从jar读取的class字节数，包括从{@link ClassArchive}读取的
+   */
+  long getJarReadByteCount();
+
+  /**
+   * 从jar读取一个class的耗时；从{@link ClassArchive}读取时只是切一段ByteBuffer
+   */
+  LatencyHistogram.Snapshot getJarRead();
+
+}
@@ -18,7 +18,7 @@ public class LogClassLoader extends URLClassLoader {
 
   @Getter
   private static LogClassLoader DEFAULT_LOADER;
-  private final List<String> logPrefixList = new ArrayList<>();
+  private final IsolationRules isolationRules = IsolationRules.get();
 
   static {
     ClassLoader.registerAsParallelCapable();
@@ -26,10 +26,6 @@ public class LogClassLoader extends URLClassLoader {
 
   public LogClassLoader(ClassLoader parent) {
     super(findJarUrls(), parent);
-
-    logPrefixList.add("org.slf4j.");
-    logPrefixList.add("org.apache.logging.log4j.");
-    logPrefixList.add("org.apache.logging.slf4j.");
   }
 
   private static URL[] findJarUrls() {
@@ -64,13 +60,7 @@ public class LogClassLoader extends URLClassLoader {
 //        return loadedClass;
 //      }
 
-      boolean shouldIsolate = false;
-      for (String prefix : logPrefixList) {
-        if (name.startsWith(prefix)) {
-          shouldIsolate = true;
-          break;
-        }
-      }
+      boolean shouldIsolate = isolationRules.isolateClass(name);
 
       if (shouldIsolate) {
         loadedClass = findClass(name);
@@ -113,10 +103,8 @@ public class LogClassLoader extends URLClassLoader {
   public URL getResource(String name) {
     System.out.println("getResource : " + name);
 
-    for (String logPrefix : logPrefixList) {
-      if (name.startsWith(logPrefix.replaceAll("\\.", "/"))) {
-        return findResource(name);
-      }
+    if (isolationRules.isolateResource(name)) {
+      return findResource(name);
     }
     return super.getResource(name);
   }
@@ -125,10 +113,8 @@ public class LogClassLoader extends URLClassLoader {
   public Enumeration<URL> getResources(String name) throws IOException {
     System.out.println("getResources : " + name);
 
-    for (String logPrefix : logPrefixList) {
-      if (name.startsWith(logPrefix.replaceAll("\\.", "/"))) {
-        return findResources(name);
-      }
+    if (isolationRules.isolateResource(name)) {
+      return findResources(name);
     }
     return super.getResources(name);
   }
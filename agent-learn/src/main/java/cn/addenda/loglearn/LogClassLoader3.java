@@ -5,6 +5,7 @@ import org.apache.commons.io.IOUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -21,7 +22,7 @@ public class LogClassLoader3 extends URLClassLoader {
 
   @Getter
   private static LogClassLoader3 DEFAULT_LOADER;
-  private final List<String> logPrefixList = new ArrayList<>();
+  private final IsolationRules isolationRules = IsolationRules.get();
 
   List<Jar> jars;
 
@@ -33,9 +34,6 @@ public class LogClassLoader3 extends URLClassLoader {
     super(findJarUrls(), parent);
 
     jars = doGetJars();
-    logPrefixList.add("org.slf4j.");
-    logPrefixList.add("org.apache.logging.log4j.");
-    logPrefixList.add("org.apache.logging.slf4j.");
   }
 
   @Override
@@ -46,13 +44,7 @@ public class LogClassLoader3 extends URLClassLoader {
         return loadedClass;
       }
 
-      boolean shouldIsolate = false;
-      for (String prefix : logPrefixList) {
-        if (name.startsWith(prefix)) {
-          shouldIsolate = true;
-          break;
-        }
-      }
+      boolean shouldIsolate = isolationRules.isolateClass(name);
 
       if (shouldIsolate) {
         loadedClass = doFindClass(name);
@@ -69,10 +61,8 @@ public class LogClassLoader3 extends URLClassLoader {
   @Override
   public URL getResource(String name) {
     System.out.println("getResource: " + name);
-//    for (String logPrefix : logPrefixList) {
-//      if (name.startsWith(logPrefix.replaceAll("\\.", "/"))) {
-//        return findResource(name);
-//      }
+//    if (isolationRules.isolateResource(name)) {
+//      return findResource(name);
 //    }
     return super.getResource(name);
   }
@@ -80,10 +70,8 @@ public class LogClassLoader3 extends URLClassLoader {
   @Override
   public Enumeration<URL> getResources(String name) throws IOException {
     System.out.println("getResources: " + name);
-//    for (String logPrefix : logPrefixList) {
-//      if (name.startsWith(logPrefix.replaceAll("\\.", "/"))) {
-//        return findResources(name);
-//      }
+//    if (isolationRules.isolateResource(name)) {
+//      return findResources(name);
 //    }
     return super.getResources(name);
   }
@@ -129,9 +117,16 @@ public class LogClassLoader3 extends URLClassLoader {
       if (jarEntry == null) {
         continue;
       }
-      try {
-        URL url = new URL("jar:file:" + jar.sourceFile.getAbsolutePath() + "!/" + concat);
-        byte[] byteArray = IOUtils.toByteArray(url);
+      // 直接从已经打开的JarFile读，按entry的原始大小分配数组，不再经过jar: URL和JarURLConnection
+      try (InputStream inputStream = jar.jarFile.getInputStream(jarEntry)) {
+        long size = jarEntry.getSize();
+        byte[] byteArray;
+        if (size < 0) {
+          byteArray = IOUtils.toByteArray(inputStream);
+        } else {
+          byteArray = new byte[(int) size];
+          IOUtils.readFully(inputStream, byteArray);
+        }
         return defineClass(name, byteArray, 0, byteArray.length);
       } catch (Exception e) {
         System.out.println(String.format("find class %s error", name));
@@ -5,6 +5,7 @@ import org.apache.commons.io.IOUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Enumeration;
@@ -19,7 +20,7 @@ public class LogClassLoader4 extends ClassLoader {
 
   @Getter
   private static LogClassLoader4 DEFAULT_LOADER;
-  private final List<String> logPrefixList = new ArrayList<>();
+  private final IsolationRules isolationRules = IsolationRules.get();
 
   List<Jar> jars;
 
@@ -31,9 +32,6 @@ public class LogClassLoader4 extends ClassLoader {
     super(parent);
 
     jars = doGetJars();
-    logPrefixList.add("org.slf4j.");
-    logPrefixList.add("org.apache.logging.log4j.");
-    logPrefixList.add("org.apache.logging.slf4j.");
   }
 
   @Override
@@ -44,13 +42,7 @@ public class LogClassLoader4 extends ClassLoader {
         return loadedClass;
       }
 
-      boolean shouldIsolate = false;
-      for (String prefix : logPrefixList) {
-        if (name.startsWith(prefix)) {
-          shouldIsolate = true;
-          break;
-        }
-      }
+      boolean shouldIsolate = isolationRules.isolateClass(name);
 
       if (shouldIsolate) {
         loadedClass = doFindClass(name);
@@ -67,10 +59,8 @@ public class LogClassLoader4 extends ClassLoader {
   @Override
   public URL getResource(String name) {
     System.out.println("getResource: " + name);
-//    for (String logPrefix : logPrefixList) {
-//      if (name.startsWith(logPrefix.replaceAll("\\.", "/"))) {
-//        return findResource(name);
-//      }
+//    if (isolationRules.isolateResource(name)) {
+//      return findResource(name);
 //    }
     return super.getResource(name);
   }
@@ -78,10 +68,8 @@ public class LogClassLoader4 extends ClassLoader {
   @Override
   public Enumeration<URL> getResources(String name) throws IOException {
     System.out.println("getResources: " + name);
-//    for (String logPrefix : logPrefixList) {
-//      if (name.startsWith(logPrefix.replaceAll("\\.", "/"))) {
-//        return findResources(name);
-//      }
+//    if (isolationRules.isolateResource(name)) {
+//      return findResources(name);
 //    }
     return super.getResources(name);
   }
@@ -103,9 +91,16 @@ public class LogClassLoader4 extends ClassLoader {
       if (jarEntry == null) {
         continue;
       }
-      try {
-        URL url = new URL("jar:file:" + jar.sourceFile.getAbsolutePath() + "!/" + concat);
-        byte[] byteArray = IOUtils.toByteArray(url);
+      // 直接从已经打开的JarFile读，按entry的原始大小分配数组，不再经过jar: URL和JarURLConnection
+      try (InputStream inputStream = jar.jarFile.getInputStream(jarEntry)) {
+        long size = jarEntry.getSize();
+        byte[] byteArray;
+        if (size < 0) {
+          byteArray = IOUtils.toByteArray(inputStream);
+        } else {
+          byteArray = new byte[(int) size];
+          IOUtils.readFully(inputStream, byteArray);
+        }
         return defineClass(name, byteArray, 0, byteArray.length);
       } catch (Exception e) {
         System.out.println(String.format("find class %s error", name));
@@ -3,30 +3,136 @@ package cn.addenda.loglearn;
 import lombok.Getter;
 import org.apache.commons.io.IOUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
-import java.util.jar.JarEntry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
 
 /**
  * 将class的加载换成我自己的实现，但不继承URLClassLoader，同时指定父加载器为ExtClassLoader。实现从jar中读取文件。
  * <p>
  * 1、是哪些文件加载失败，导致的异常
  * 2、为什么URLClassLoader可以呢，
+ * <p>
+ * jar在第一次从里面读取class、资源时才打开，空闲超过loader.jarIdleMillis后关闭，再需要时重新打开，见{@link #startJarReleaser()}。
+ * {@link #close()}之后不再加载新的隔离类，也不再返回资源，已经加载的类不受影响。
  */
-public class LogClassLoader6 extends ClassLoader {
+public class LogClassLoader6 extends ClassLoader implements Closeable {
 
   @Getter
   private static LogClassLoader6 DEFAULT_LOADER;
-  private final List<String> logPrefixList = new ArrayList<>();
+  private final IsolationRules isolationRules = IsolationRules.get();
 
   List<Jar> jars;
 
+  /**
+   * entry名称 -> jar，构造时建好，优先从{@link JarIndexCache}读取
+   */
+  JarEntryIndex entryIndex;
+
+  /**
+   * 单文件发布时lib/log下的jar在agent jar里面，见{@link NestedJars}；目录布局时为null
+   */
+  private NestedJars nestedJars;
+
+  public static final String CLASS_ARCHIVE_KEY = "loader.classArchive";
+
+  /**
+   * 预先解压好的class，见{@link ClassArchive}；没有构建、过期或者loader.classArchive=false时为null，从jar读取
+   */
+  private ClassArchive classArchive;
+
+  public static final String PRELOAD_KEY = "loader.preload";
+  public static final String PRELOAD_THREADS_KEY = "loader.preload.threads";
+
+  /**
+   * 按上一次运行的记录预加载类，或者记录这一次定义的类，见{@link ClassPreloader}；loader.preload=false时为null
+   */
+  private ClassPreloader classPreloader;
+
+  /**
+   * 单文件发布时资源URL的协议，内层jar没有jar:file:的URL可用
+   */
+  public static final String NESTED_PROTOCOL = "loglearn-nested";
+  private final URLStreamHandler entryURLStreamHandler = new EntryURLStreamHandler();
+
+  public static final String JAR_IDLE_MILLIS_KEY = "loader.jarIdleMillis";
+
+  /**
+   * jar空闲（没有从里面读取class）多久之后关闭JarFile，释放文件句柄和zip目录占用的内存，0表示不关闭
+   */
+  private final long jarIdleMillis = AgentConfig.get().getLong(JAR_IDLE_MILLIS_KEY, 60000);
+
+  /**
+   * 有jar打开时才有关闭空闲jar的后台线程，jar都关闭之后线程退出
+   */
+  private final AtomicBoolean jarReleaserStarted = new AtomicBoolean();
+
+  private volatile boolean closed;
+
+  public static final String RESOURCE_CACHE_MAX_BYTES_KEY = "loader.resourceCache.maxBytes";
+
+  /**
+   * 通过资源URL读取过的内容，见{@link ResourceCache}；loader.resourceCache.maxBytes为0时为null，不缓存
+   */
+  private final ResourceCache resourceCache = newResourceCache();
+
+  /**
+   * jar索引缓存未命中时，并行解析lib/log下的jar的线程数，见{@link JarIndexCache#scan(List, boolean, JarIndexCache.JarTask)}
+   */
+  public static final String SCAN_PARALLELISM_KEY = "loader.scanParallelism";
+
+  public static final String FAST_PATH_KEY = "loader.fastPath";
+
+  /**
+   * 开启后，已经加载过的类（包括委派给父加载器加载的类）发布到{@link #loadedClasses}，之后的loadClass不加锁
+   */
+  private final boolean fastPath = AgentConfig.get().getBoolean(FAST_PATH_KEY, true);
+
+  /**
+   * 类名 -> 已经加载过的类，读多写少
+   */
+  private final ConcurrentHashMap<String, Class<?>> loadedClasses = new ConcurrentHashMap<>();
+
+  public static final String MISS_CACHE_MAX_SIZE_KEY = "loader.missCache.maxSize";
+
+  /**
+   * 委派给父加载器、父加载器也找不到的类名，例如log4j探测的com.fasterxml.jackson.databind.ObjectMapper。
+   * 父加载器是ExtClassLoader（platform），它能加载的类启动后不会变，所以再次加载时直接抛出ClassNotFoundException，
+   * 不再加锁、不再委派（委派一次要创建两个带栈的异常）。只限制数量：超过上限后不再缓存，0表示不缓存。
+   * 之后通过Instrumentation#appendToBootstrapClassLoaderSearch追加的类，对已经缓存的类名不可见，有这种需要时配置成0。
+   * <p>
+   * 隔离的类不需要缓存：索引在构造时建好之后不会变，索引里没有的类一定加载不到，见{@link #loadClass(String, boolean)}。
+   */
+  private final Set<String> missingClasses = ConcurrentHashMap.newKeySet();
+  private final int missCacheMaxSize = AgentConfig.get().getInt(MISS_CACHE_MAX_SIZE_KEY, 1024);
+
+  /**
+   * 定义的类、资源查找、读取的class字节数的统计，见{@link StartupProfiler}、{@link LoaderMetricsMXBean}
+   */
+  @Getter
+  private final LoaderMetrics metrics = new LoaderMetrics();
+
   static {
     ClassLoader.registerAsParallelCapable();
   }
@@ -34,57 +140,101 @@ public class LogClassLoader6 extends ClassLoader {
   public LogClassLoader6(ClassLoader parent) {
     super(parent);
 
-    jars = doGetJars();
-    logPrefixList.add("org.slf4j.");
-    logPrefixList.add("org.apache.logging.log4j.");
-    logPrefixList.add("org.apache.logging.slf4j.");
+    int entryIndexPhase = StartupProfiler.begin("entryIndex");
+    try {
+      entryIndex = doBuildEntryIndex();
+    } finally {
+      StartupProfiler.end(entryIndexPhase);
+    }
+    int jarsPhase = StartupProfiler.begin("jars");
+    try {
+      jars = doGetJars(entryIndex);
+    } finally {
+      StartupProfiler.end(jarsPhase);
+    }
+    if (AgentConfig.get().getBoolean(CLASS_ARCHIVE_KEY, true)) {
+      int classArchivePhase = StartupProfiler.begin("classArchive");
+      try {
+        classArchive = ClassArchive.open(new File(cacheDir(), ClassArchive.FILE_NAME), entryIndex);
+      } finally {
+        StartupProfiler.end(classArchivePhase);
+      }
+    }
+    if (AgentConfig.get().getBoolean(PRELOAD_KEY, true)) {
+      classPreloader = ClassPreloader.open(new File(cacheDir(), ClassPreloader.FILE_NAME), entryIndex);
+    }
   }
 
   @Override
   protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-    synchronized (getClassLoadingLock(name)) {
-      Class<?> loadedClass = findLoadedClass(name);
+    // 快速路径：已经加载过的类直接从ConcurrentHashMap返回，不加锁，也不会在parallelLockMap里为类名创建锁对象
+    if (fastPath) {
+      Class<?> loadedClass = loadedClasses.get(name);
       if (loadedClass != null) {
+        if (resolve) {
+          resolveClass(loadedClass);
+        }
         return loadedClass;
       }
+    }
 
-      boolean shouldIsolate = false;
-      for (String prefix : logPrefixList) {
-        if (name.startsWith(prefix)) {
-          shouldIsolate = true;
-          break;
-        }
+    // 确定不存在的类：隔离的类看索引，委派给父加载器的类看missingClasses。直接抛出，
+    // 不加锁，也不会在parallelLockMap里为这个类名创建锁对象
+    boolean shouldIsolate = isolationRules.isolateClass(name);
+    if (shouldIsolate) {
+      if (entryIndex.find(classResourceName(name)) == -1) {
+        metrics.recordClassNotFound();
+        throw new ClassNotFoundException("can not find " + name);
       }
+    } else if (missingClasses.contains(name)) {
+      throw new ClassNotFoundException(name);
+    }
 
-      if (shouldIsolate) {
-        loadedClass = doFindClass(name);
-        if (resolve) {
-          resolveClass(loadedClass);
+    synchronized (getClassLoadingLock(name)) {
+      Class<?> loadedClass = findLoadedClass(name);
+      if (loadedClass == null) {
+        if (shouldIsolate) {
+          loadedClass = doFindClass(name);
+        } else {
+          try {
+            loadedClass = super.loadClass(name, false);
+          } catch (ClassNotFoundException e) {
+            if (missingClasses.size() < missCacheMaxSize) {
+              missingClasses.add(name);
+            }
+            throw e;
+          }
         }
-        return loadedClass;
       }
-
-      return super.loadClass(name, resolve);
+      if (fastPath) {
+        loadedClasses.putIfAbsent(name, loadedClass);
+      }
+      if (resolve) {
+        resolveClass(loadedClass);
+      }
+      return loadedClass;
     }
   }
 
-
   @Override
   public Enumeration<URL> getResources(String name) throws IOException {
+    long begin = System.nanoTime();
     List<URL> allResources = new ArrayList<>();
-    for (Jar jar : jars) {
-      JarEntry jarEntry = jar.jarFile.getJarEntry(name);
-      if (jarEntry == null) {
-        continue;
-      }
+    if (closed) {
+      return Collections.emptyEnumeration();
+    }
+    JarEntryIndex _entryIndex = entryIndex;
+    for (int slot = _entryIndex.find(name); slot != -1; slot = _entryIndex.findNext(name, slot)) {
+      Jar jar = jars.get(_entryIndex.jarId(slot));
       try {
-        URL url = new URL("jar:file:" + jar.sourceFile.getAbsolutePath() + "!/" + name);
+        URL url = jar.url(name);
         allResources.add(url);
       } catch (Exception e) {
         System.out.println(String.format("find file {} error", name));
         e.printStackTrace();
       }
     }
+    metrics.recordResourceLookup(System.nanoTime() - begin, !allResources.isEmpty());
     Iterator<URL> iterator = allResources.iterator();
     return new Enumeration<URL>() {
       @Override
@@ -102,23 +252,34 @@ public class LogClassLoader6 extends ClassLoader {
   @Override
   public URL getResource(String name) {
     // todo 设置为线程上下文类加载器，再从这里读取外部目录的log4j2.xml
-    for (Jar jar : jars) {
-      JarEntry jarEntry = jar.jarFile.getJarEntry(name);
-      if (jarEntry == null) {
-        continue;
-      }
+    long begin = System.nanoTime();
+    if (closed) {
+      return null;
+    }
+    JarEntryIndex _entryIndex = entryIndex;
+    for (int slot = _entryIndex.find(name); slot != -1; slot = _entryIndex.findNext(name, slot)) {
+      Jar jar = jars.get(_entryIndex.jarId(slot));
       try {
         // 返回第一个
-        URL url = new URL("jar:file:" + jar.sourceFile.getAbsolutePath() + "!/" + name);
+        URL url = jar.url(name);
+        metrics.recordResourceLookup(System.nanoTime() - begin, true);
         return url;
       } catch (Exception e) {
         System.out.println(String.format("find file {} error", name));
         e.printStackTrace();
       }
     }
+    metrics.recordResourceLookup(System.nanoTime() - begin, false);
     return null;
   }
 
+  /**
+   * @return 是否是单文件发布，lib/log下的jar在agent jar里面
+   */
+  public boolean isNested() {
+    return nestedJars != null;
+  }
+
   public static synchronized void initDefaultLoader() {
     if (DEFAULT_LOADER == null) {
       ClassLoader extensionClassLoader = ClassLoader.getSystemClassLoader().getParent();
@@ -128,65 +289,433 @@ public class LogClassLoader6 extends ClassLoader {
   }
 
   private Class<?> doFindClass(String name) throws ClassNotFoundException {
+    long begin = System.nanoTime();
     List<Jar> _allJarList = jars;
+    JarEntryIndex _entryIndex = entryIndex;
 
-    String concat = name.replace(".", "/").concat(".class");
-    for (Jar jar : _allJarList) {
-      JarEntry jarEntry = jar.jarFile.getJarEntry(concat);
-      if (jarEntry == null) {
-        continue;
+    String concat = classResourceName(name);
+    ClassArchive _classArchive = classArchive;
+    if (_classArchive != null) {
+      for (int slot = _classArchive.find(concat); slot != -1; slot = _classArchive.findNext(concat, slot)) {
+        try {
+          long readBegin = System.nanoTime();
+          ByteBuffer classBytes = _classArchive.read(slot);
+          metrics.recordJarRead(System.nanoTime() - readBegin, classBytes.remaining());
+          // direct ByteBuffer直接交给JVM解析，不拷贝到堆上
+          Class<?> definedClass = defineClass(name, classBytes, null);
+          metrics.recordFindClass(System.nanoTime() - begin, true);
+          recordDefinedClass(name);
+          return definedClass;
+        } catch (Exception e) {
+          System.out.println(String.format("find class %s in class archive error", name));
+        }
       }
+    }
+    // 没有archive，或者archive里读取失败时从jar读取
+    for (int slot = _entryIndex.find(concat); slot != -1; slot = _entryIndex.findNext(concat, slot)) {
+      Jar jar = _allJarList.get(_entryIndex.jarId(slot));
       try {
-        URL url = new URL("jar:file:" + jar.sourceFile.getAbsolutePath() + "!/" + concat);
-        byte[] byteArray = IOUtils.toByteArray(url);
-        return defineClass(name, byteArray, 0, byteArray.length);
+        long readBegin = System.nanoTime();
+        byte[] byteArray = jar.read(_entryIndex, slot, concat);
+        metrics.recordJarRead(System.nanoTime() - readBegin, byteArray.length);
+        startJarReleaser();
+        Class<?> definedClass = defineClass(name, byteArray, 0, byteArray.length);
+        metrics.recordFindClass(System.nanoTime() - begin, true);
+        recordDefinedClass(name);
+        return definedClass;
       } catch (Exception e) {
         System.out.println(String.format("find class %s error", name));
       }
     }
+    metrics.recordFindClass(System.nanoTime() - begin, false);
     throw new ClassNotFoundException("can not find " + name);
   }
 
 
-  private List<Jar> doGetJars() {
-    List<Jar> _allJarList = new ArrayList<>();
+  /**
+   * 关闭所有jar，之后的隔离类、资源都找不到。mmap的class archive、单文件发布的agent jar没有办法主动unmap，
+   * 这里只是不再引用它们，由GC回收
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    classArchive = null;
+    if (resourceCache != null) {
+      resourceCache.clear();
+    }
+    IOException exception = null;
+    for (Jar jar : jars) {
+      try {
+        jar.close();
+      } catch (IOException e) {
+        if (exception == null) {
+          exception = e;
+        } else {
+          exception.addSuppressed(e);
+        }
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  /**
+   * 第一次打开jar时启动后台线程（单文件发布时没有JarFile，不启动），每隔jarIdleMillis / 2检查一次，关闭空闲超过jarIdleMillis的jar；
+   * 所有jar都关闭之后线程退出，下次打开jar时再启动
+   */
+  private void startJarReleaser() {
+    if (jarIdleMillis <= 0 || nestedJars != null || jarReleaserStarted.get() || !jarReleaserStarted.compareAndSet(false, true)) {
+      return;
+    }
+    Thread thread = new Thread(() -> {
+      long idleNanos = TimeUnit.MILLISECONDS.toNanos(jarIdleMillis);
+      while (!closed) {
+        try {
+          Thread.sleep(Math.max(jarIdleMillis / 2, 1));
+        } catch (InterruptedException e) {
+          jarReleaserStarted.set(false);
+          return;
+        }
+        for (Jar jar : jars) {
+          try {
+            if (jar.releaseIfIdle(idleNanos)) {
+              System.out.println(String.format("release idle jar %s.", jar.sourceFile));
+            }
+          } catch (IOException e) {
+            System.out.println(String.format("release idle jar %s fail.", jar.sourceFile));
+            e.printStackTrace();
+          }
+        }
+        if (!anyJarOpen()) {
+          jarReleaserStarted.set(false);
+          // 检查之后、重置之前可能又有jar被打开，这时候由当前线程继续
+          if (!anyJarOpen() || !jarReleaserStarted.compareAndSet(false, true)) {
+            return;
+          }
+        }
+      }
+    }, "loglearn-jar-release");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private boolean anyJarOpen() {
+    for (Jar jar : jars) {
+      if (jar.jarFile != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void recordDefinedClass(String name) {
+    ClassPreloader _classPreloader = classPreloader;
+    if (_classPreloader != null) {
+      _classPreloader.recordDefinedClass(name);
+    }
+  }
+
+  private static ResourceCache newResourceCache() {
+    long maxBytes = AgentConfig.get().getLong(RESOURCE_CACHE_MAX_BYTES_KEY, 1024 * 1024);
+    return maxBytes > 0 ? new ResourceCache(maxBytes) : null;
+  }
+
+  private static String classResourceName(String className) {
+    return className.replace(".", "/").concat(".class");
+  }
+
+  /**
+   * agent jar的manifest里有{@link NestedJars#MANIFEST_ATTRIBUTE}时是单文件发布，直接用它里面的lib/log/*.jar；否则是目录布局，读lib/log目录下的jar
+   */
+  private JarEntryIndex doBuildEntryIndex() {
     File agentJarDir = AgentPackagePath.getPath();
     System.out.println("Agent base directory: " + agentJarDir);
     File logLibDir = new File(new File(agentJarDir, "lib"), "log");
 
-    if (logLibDir.exists() && logLibDir.isDirectory()) {
-      String[] list = logLibDir.list((dir, name) -> name.endsWith(".jar"));
-      if (list == null || list.length == 0) {
-        return _allJarList;
+    File agentJarFile = AgentPackagePath.getJarFile();
+    if (agentJarFile != null && NestedJars.isSingleJar(agentJarFile)) {
+      try {
+        nestedJars = NestedJars.open(agentJarFile);
+      } catch (IOException e) {
+        System.out.println(String.format("read nested jars in %s fail.", agentJarFile));
+        e.printStackTrace();
       }
-      for (String s : list) {
-        File jarSourceFile = new File(logLibDir, s);
-        try {
-          Jar jar = new Jar(new JarFile(jarSourceFile), jarSourceFile);
-          _allJarList.add(jar);
-          System.out.println(String.format("load jar %s success.", jarSourceFile));
-        } catch (Exception e) {
-          System.out.println(String.format("jar %s load fail.", jarSourceFile));
-          e.printStackTrace();
-        }
+      if (nestedJars != null) {
+        JarEntryIndex _entryIndex = nestedJars.getEntryIndex();
+        System.out.println(String.format("build nested entry index success, %s entries.", _entryIndex.size()));
+        return _entryIndex;
+      }
+    }
+
+    JarEntryIndex _entryIndex = JarIndexCache.load(logLibDir, JarIndexCache.jarSourceFiles(logLibDir));
+    System.out.println(String.format("build entry index success, %s entries.", _entryIndex.size()));
+    return _entryIndex;
+  }
+
+  /**
+   * class archive、预加载的类列表所在的目录，和jar-index.idx放在一起：目录布局是lib/log，单文件发布是agent jar所在的目录
+   */
+  private File cacheDir() {
+    File agentJarDir = AgentPackagePath.getPath();
+    return nestedJars != null ? agentJarDir : new File(new File(agentJarDir, "lib"), "log");
+  }
+
+  ClassPreloader getClassPreloader() {
+    return classPreloader;
+  }
+
+  private List<Jar> doGetJars(JarEntryIndex _entryIndex) {
+    File logLibDir = new File(new File(AgentPackagePath.getPath(), "lib"), "log");
+    List<Jar> _allJarList = new ArrayList<>();
+    for (int jarId = 0; jarId < _entryIndex.jarCount(); jarId++) {
+      if (nestedJars != null) {
+        _allJarList.add(new Jar(_entryIndex.jarName(jarId), nestedJars.jarContent(jarId), entryURLStreamHandler));
+        System.out.println(String.format("load nested jar %s success.", _entryIndex.jarName(jarId)));
+      } else {
+        File jarSourceFile = new File(logLibDir, _entryIndex.jarName(jarId));
+        _allJarList.add(new Jar(jarSourceFile, entryURLStreamHandler));
+        System.out.println(String.format("load jar %s success.", jarSourceFile));
       }
     }
     return _allJarList;
   }
 
+  /**
+   * 资源URL的handler，内容从{@link ResourceCache}或者{@link Jar}读取，和读class用的是同一个JarFile，空闲时一起关闭。
+   * <p>
+   * 目录布局：jar:file:/.../lib/log/log4j-core-2.17.2.jar!/META-INF/...，和JDK的jar: URL形式一样，
+   * 但不经过JDK的JarFile缓存（JarFileFactory里的JarFile会一直打开到进程退出）；连接是{@link JarURLConnection}，
+   * 按jar: URL处理的代码（例如log4j的ResolverUtil）不受影响。
+   * <p>
+   * 单文件发布：loglearn-nested:/log4j-core-2.17.2.jar!/META-INF/...，内层jar没有jar:file:的URL可用。
+   */
+  private class EntryURLStreamHandler extends URLStreamHandler {
+
+    @Override
+    protected URLConnection openConnection(URL url) throws IOException {
+      if (NESTED_PROTOCOL.equals(url.getProtocol())) {
+        return new URLConnection(url) {
+          private byte[] content;
+
+          @Override
+          public void connect() throws IOException {
+            if (content == null) {
+              content = readEntry(url);
+              connected = true;
+            }
+          }
+
+          @Override
+          public InputStream getInputStream() throws IOException {
+            connect();
+            return new ByteArrayInputStream(content);
+          }
+
+          @Override
+          public long getContentLengthLong() {
+            try {
+              connect();
+              return content.length;
+            } catch (IOException e) {
+              return -1;
+            }
+          }
+        };
+      }
+      return new JarURLConnection(url) {
+        private byte[] content;
+
+        @Override
+        public void connect() throws IOException {
+          if (content == null) {
+            content = readEntry(url);
+            connected = true;
+          }
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+          connect();
+          return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public long getContentLengthLong() {
+          try {
+            connect();
+            return content.length;
+          } catch (IOException e) {
+            return -1;
+          }
+        }
+
+        /**
+         * 每次返回新打开的JarFile，由调用方关闭，不影响{@link Jar}里的JarFile
+         */
+        @Override
+        public JarFile getJarFile() throws IOException {
+          return new JarFile(new File(getJarFileURL().getPath()));
+        }
+      };
+    }
+
+    private byte[] readEntry(URL url) throws IOException {
+      String path = url.getPath();
+      int separator = path.indexOf("!/");
+      if (separator < 0) {
+        throw new MalformedURLException("no !/ in " + url);
+      }
+      String jarName = path.substring(path.lastIndexOf('/', separator - 1) + 1, separator);
+      String name = path.substring(separator + 2);
+      JarEntryIndex _entryIndex = entryIndex;
+      for (int slot = _entryIndex.find(name); slot != -1; slot = _entryIndex.findNext(name, slot)) {
+        int jarId = _entryIndex.jarId(slot);
+        if (_entryIndex.jarName(jarId).equals(jarName)) {
+          ResourceCache _resourceCache = resourceCache;
+          if (_resourceCache != null) {
+            byte[] content = _resourceCache.get(slot);
+            if (content != null) {
+              metrics.recordResourceCacheHit();
+              return content;
+            }
+          }
+          byte[] content = jars.get(jarId).read(_entryIndex, slot, name);
+          startJarReleaser();
+          if (_resourceCache != null) {
+            _resourceCache.put(slot, content);
+          }
+          return content;
+        }
+      }
+      throw new FileNotFoundException(url.toString());
+    }
+  }
+
   private static class Jar {
     /**
-     * jar文件对对应的jarFile对象
+     * jar文件，单文件发布时为null
      */
-    private final JarFile jarFile;
+    private final File sourceFile;
     /**
-     * jar文件
+     * jar文件对对应的jarFile对象，第一次读取entry内容时才打开，空闲时关闭，之后再读取时重新打开
      */
-    private final File sourceFile;
+    private volatile JarFile jarFile;
+    /**
+     * 读取entry时持有读锁，关闭jarFile时持有写锁，保证不会关闭正在读取的jarFile
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long lastReadNanos;
+    private volatile boolean closed;
+    /**
+     * 单文件发布时内层jar的名称、内容
+     */
+    private final String nestedName;
+    private final ByteBuffer nestedContent;
+    /**
+     * 资源URL的handler，见{@link EntryURLStreamHandler}
+     */
+    private final URLStreamHandler urlStreamHandler;
 
-    public Jar(JarFile jarFile, File sourceFile) {
-      this.jarFile = jarFile;
+    public Jar(File sourceFile, URLStreamHandler urlStreamHandler) {
       this.sourceFile = sourceFile;
+      this.nestedName = null;
+      this.nestedContent = null;
+      this.urlStreamHandler = urlStreamHandler;
+    }
+
+    public Jar(String nestedName, ByteBuffer nestedContent, URLStreamHandler urlStreamHandler) {
+      this.sourceFile = null;
+      this.nestedName = nestedName;
+      this.nestedContent = nestedContent;
+      this.urlStreamHandler = urlStreamHandler;
+    }
+
+    /**
+     * 数组按索引里记录的原始大小分配。目录布局直接从jar自己的JarFile读，不再经过jar: URL和JarURLConnection；
+     * 单文件发布按索引里的偏移量直接从内层jar的内容里读
+     */
+    public byte[] read(JarEntryIndex entryIndex, int slot, String name) throws IOException {
+      if (closed) {
+        throw new IOException(String.format("jar %s is closed.", nestedContent != null ? nestedName : sourceFile));
+      }
+      if (nestedContent != null) {
+        return JarDirectory.read(nestedContent, entryIndex.offset(slot), entryIndex.method(slot),
+                entryIndex.compressedSize(slot), entryIndex.size(slot));
+      }
+      lock.readLock().lock();
+      try {
+        if (closed) {
+          throw new IOException(String.format("jar %s is closed.", sourceFile));
+        }
+        lastReadNanos = System.nanoTime();
+        JarFile _jarFile = getJarFile();
+        ZipEntry zipEntry = _jarFile.getEntry(name);
+        byte[] byteArray = new byte[entryIndex.size(slot)];
+        try (InputStream inputStream = _jarFile.getInputStream(zipEntry)) {
+          IOUtils.readFully(inputStream, byteArray);
+        }
+        return byteArray;
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    /**
+     * 有线程正在读取时不关闭，等下一次检查
+     *
+     * @return 是否关闭了jarFile
+     */
+    public boolean releaseIfIdle(long idleNanos) throws IOException {
+      if (jarFile == null || System.nanoTime() - lastReadNanos < idleNanos || !lock.writeLock().tryLock()) {
+        return false;
+      }
+      try {
+        JarFile _jarFile = jarFile;
+        if (_jarFile == null || System.nanoTime() - lastReadNanos < idleNanos) {
+          return false;
+        }
+        jarFile = null;
+        _jarFile.close();
+        return true;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    public void close() throws IOException {
+      lock.writeLock().lock();
+      try {
+        closed = true;
+        JarFile _jarFile = jarFile;
+        jarFile = null;
+        if (_jarFile != null) {
+          _jarFile.close();
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    public URL url(String name) throws MalformedURLException {
+      if (nestedContent != null) {
+        return new URL(NESTED_PROTOCOL, null, -1, "/" + nestedName + "!/" + name, urlStreamHandler);
+      }
+      return new URL("jar", null, -1, "file:" + sourceFile.getAbsolutePath() + "!/" + name, urlStreamHandler);
+    }
+
+    public JarFile getJarFile() throws IOException {
+      JarFile _jarFile = jarFile;
+      if (_jarFile == null) {
+        synchronized (this) {
+          _jarFile = jarFile;
+          if (_jarFile == null) {
+            _jarFile = new JarFile(sourceFile);
+            jarFile = _jarFile;
+          }
+        }
+      }
+      return _jarFile;
     }
   }
 
@@ -8,19 +8,32 @@ public class LogLearnAgent {
 
   static Logger log;
 
-  static {
+  public static void premain(String args, Instrumentation instrumentation) {
+    int premainPhase = StartupProfiler.begin("premain");
+
+    // 隔离规则等配置来自args，需要在创建隔离类加载器之前初始化
+    int agentConfigPhase = StartupProfiler.begin("agentConfig");
+    AgentConfig.init(args);
+    StartupProfiler.end(agentConfigPhase);
+    StartupProfiler.configure(AgentConfig.get());
+
     // dist/lib/log/log4j2.xml
+    int loggerFactoryPhase = StartupProfiler.begin("loggerFactory");
     log = MyLoggerFactory.getLogger(LogLearnAgent.class);
+    StartupProfiler.end(loggerFactoryPhase);
 
     // app/src/main/resources/log4j2.xml
 //    log = LoggerFactory.getLogger(LogLearnAgent.class);
 
-  }
-
-  public static void premain(String args, Instrumentation instrumentation) {
-
+    int firstLogPhase = StartupProfiler.begin("firstLog");
     log.info("进入到premain, SkywalkingLearnAgent.class.classLoader = {}, args:{}",
             LogLearnAgent.class.getClassLoader(), args);
+    StartupProfiler.end(firstLogPhase);
+
+    StartupProfiler.end(premainPhase);
+    StartupProfiler.finish(AgentConfig.get());
+    LoaderMetrics.register(AgentConfig.get());
+    ClassPreloader.start(AgentConfig.get());
 
   }
 
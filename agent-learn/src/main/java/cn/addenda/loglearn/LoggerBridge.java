@@ -0,0 +1,959 @@
+package cn.addenda.loglearn;
+
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Iterator;
+
+/**
+ * 把agent侧的{@link Logger}调用转发给隔离类加载器里的slf4j Logger。
+ * <p>
+ * 隔离侧Logger接口的每个方法在类初始化时解析成一个MethodHandle，放在static final字段里，JIT可以把它当常量内联，
+ * 调用开销接近一次普通的接口调用；不再像Proxy那样每次调用都要getMethod、Method.invoke、创建参数数组。
+ * <p>
+ * Marker在两个类加载器里是两个不同的类，不能直接传过去，按名称（包括引用的子Marker）转换成隔离侧的Marker。
+ * <p>
+ * 开启的级别缓存在{@link LevelCache}里，被级别过滤掉的调用不进入隔离侧，也不用转换Marker。
+ */
+final class LoggerBridge implements Logger {
+
+  private static final MethodHandle GET_MARKER;
+  private static final MethodHandle ADD_MARKER;
+  private static final MethodHandle GET_NAME;
+  private static final MethodHandle IS_TRACE_ENABLED;
+  private static final MethodHandle IS_TRACE_ENABLED_M;
+  private static final MethodHandle TRACE_S;
+  private static final MethodHandle TRACE_SO;
+  private static final MethodHandle TRACE_SOO;
+  private static final MethodHandle TRACE_SA;
+  private static final MethodHandle TRACE_ST;
+  private static final MethodHandle TRACE_MS;
+  private static final MethodHandle TRACE_MSO;
+  private static final MethodHandle TRACE_MSOO;
+  private static final MethodHandle TRACE_MSA;
+  private static final MethodHandle TRACE_MST;
+  private static final MethodHandle IS_DEBUG_ENABLED;
+  private static final MethodHandle IS_DEBUG_ENABLED_M;
+  private static final MethodHandle DEBUG_S;
+  private static final MethodHandle DEBUG_SO;
+  private static final MethodHandle DEBUG_SOO;
+  private static final MethodHandle DEBUG_SA;
+  private static final MethodHandle DEBUG_ST;
+  private static final MethodHandle DEBUG_MS;
+  private static final MethodHandle DEBUG_MSO;
+  private static final MethodHandle DEBUG_MSOO;
+  private static final MethodHandle DEBUG_MSA;
+  private static final MethodHandle DEBUG_MST;
+  private static final MethodHandle IS_INFO_ENABLED;
+  private static final MethodHandle IS_INFO_ENABLED_M;
+  private static final MethodHandle INFO_S;
+  private static final MethodHandle INFO_SO;
+  private static final MethodHandle INFO_SOO;
+  private static final MethodHandle INFO_SA;
+  private static final MethodHandle INFO_ST;
+  private static final MethodHandle INFO_MS;
+  private static final MethodHandle INFO_MSO;
+  private static final MethodHandle INFO_MSOO;
+  private static final MethodHandle INFO_MSA;
+  private static final MethodHandle INFO_MST;
+  private static final MethodHandle IS_WARN_ENABLED;
+  private static final MethodHandle IS_WARN_ENABLED_M;
+  private static final MethodHandle WARN_S;
+  private static final MethodHandle WARN_SO;
+  private static final MethodHandle WARN_SOO;
+  private static final MethodHandle WARN_SA;
+  private static final MethodHandle WARN_ST;
+  private static final MethodHandle WARN_MS;
+  private static final MethodHandle WARN_MSO;
+  private static final MethodHandle WARN_MSOO;
+  private static final MethodHandle WARN_MSA;
+  private static final MethodHandle WARN_MST;
+  private static final MethodHandle IS_ERROR_ENABLED;
+  private static final MethodHandle IS_ERROR_ENABLED_M;
+  private static final MethodHandle ERROR_S;
+  private static final MethodHandle ERROR_SO;
+  private static final MethodHandle ERROR_SOO;
+  private static final MethodHandle ERROR_SA;
+  private static final MethodHandle ERROR_ST;
+  private static final MethodHandle ERROR_MS;
+  private static final MethodHandle ERROR_MSO;
+  private static final MethodHandle ERROR_MSOO;
+  private static final MethodHandle ERROR_MSA;
+  private static final MethodHandle ERROR_MST;
+
+  static {
+    try {
+      Class<?> loggerInterface = MyLoggerFactory.getLoggerInterface();
+      ClassLoader isolatedLoader = loggerInterface.getClassLoader();
+      Class<?> markerInterface = Class.forName("org.slf4j.Marker", true, isolatedLoader);
+      Class<?> markerFactoryClass = Class.forName("org.slf4j.MarkerFactory", true, isolatedLoader);
+
+      GET_MARKER = MethodHandles.publicLookup()
+              .findStatic(markerFactoryClass, "getMarker", MethodType.methodType(markerInterface, String.class))
+              .asType(MethodType.methodType(Object.class, String.class));
+      ADD_MARKER = handle(markerInterface, "add", void.class, markerInterface);
+      GET_NAME = handle(loggerInterface, "getName", String.class);
+      IS_TRACE_ENABLED = handle(loggerInterface, "isTraceEnabled", boolean.class);
+      IS_TRACE_ENABLED_M = handle(loggerInterface, "isTraceEnabled", boolean.class, markerInterface);
+      TRACE_S = handle(loggerInterface, "trace", void.class, String.class);
+      TRACE_SO = handle(loggerInterface, "trace", void.class, String.class, Object.class);
+      TRACE_SOO = handle(loggerInterface, "trace", void.class, String.class, Object.class, Object.class);
+      TRACE_SA = handle(loggerInterface, "trace", void.class, String.class, Object[].class);
+      TRACE_ST = handle(loggerInterface, "trace", void.class, String.class, Throwable.class);
+      TRACE_MS = handle(loggerInterface, "trace", void.class, markerInterface, String.class);
+      TRACE_MSO = handle(loggerInterface, "trace", void.class, markerInterface, String.class, Object.class);
+      TRACE_MSOO = handle(loggerInterface, "trace", void.class, markerInterface, String.class, Object.class, Object.class);
+      TRACE_MSA = handle(loggerInterface, "trace", void.class, markerInterface, String.class, Object[].class);
+      TRACE_MST = handle(loggerInterface, "trace", void.class, markerInterface, String.class, Throwable.class);
+      IS_DEBUG_ENABLED = handle(loggerInterface, "isDebugEnabled", boolean.class);
+      IS_DEBUG_ENABLED_M = handle(loggerInterface, "isDebugEnabled", boolean.class, markerInterface);
+      DEBUG_S = handle(loggerInterface, "debug", void.class, String.class);
+      DEBUG_SO = handle(loggerInterface, "debug", void.class, String.class, Object.class);
+      DEBUG_SOO = handle(loggerInterface, "debug", void.class, String.class, Object.class, Object.class);
+      DEBUG_SA = handle(loggerInterface, "debug", void.class, String.class, Object[].class);
+      DEBUG_ST = handle(loggerInterface, "debug", void.class, String.class, Throwable.class);
+      DEBUG_MS = handle(loggerInterface, "debug", void.class, markerInterface, String.class);
+      DEBUG_MSO = handle(loggerInterface, "debug", void.class, markerInterface, String.class, Object.class);
+      DEBUG_MSOO = handle(loggerInterface, "debug", void.class, markerInterface, String.class, Object.class, Object.class);
+      DEBUG_MSA = handle(loggerInterface, "debug", void.class, markerInterface, String.class, Object[].class);
+      DEBUG_MST = handle(loggerInterface, "debug", void.class, markerInterface, String.class, Throwable.class);
+      IS_INFO_ENABLED = handle(loggerInterface, "isInfoEnabled", boolean.class);
+      IS_INFO_ENABLED_M = handle(loggerInterface, "isInfoEnabled", boolean.class, markerInterface);
+      INFO_S = handle(loggerInterface, "info", void.class, String.class);
+      INFO_SO = handle(loggerInterface, "info", void.class, String.class, Object.class);
+      INFO_SOO = handle(loggerInterface, "info", void.class, String.class, Object.class, Object.class);
+      INFO_SA = handle(loggerInterface, "info", void.class, String.class, Object[].class);
+      INFO_ST = handle(loggerInterface, "info", void.class, String.class, Throwable.class);
+      INFO_MS = handle(loggerInterface, "info", void.class, markerInterface, String.class);
+      INFO_MSO = handle(loggerInterface, "info", void.class, markerInterface, String.class, Object.class);
+      INFO_MSOO = handle(loggerInterface, "info", void.class, markerInterface, String.class, Object.class, Object.class);
+      INFO_MSA = handle(loggerInterface, "info", void.class, markerInterface, String.class, Object[].class);
+      INFO_MST = handle(loggerInterface, "info", void.class, markerInterface, String.class, Throwable.class);
+      IS_WARN_ENABLED = handle(loggerInterface, "isWarnEnabled", boolean.class);
+      IS_WARN_ENABLED_M = handle(loggerInterface, "isWarnEnabled", boolean.class, markerInterface);
+      WARN_S = handle(loggerInterface, "warn", void.class, String.class);
+      WARN_SO = handle(loggerInterface, "warn", void.class, String.class, Object.class);
+      WARN_SOO = handle(loggerInterface, "warn", void.class, String.class, Object.class, Object.class);
+      WARN_SA = handle(loggerInterface, "warn", void.class, String.class, Object[].class);
+      WARN_ST = handle(loggerInterface, "warn", void.class, String.class, Throwable.class);
+      WARN_MS = handle(loggerInterface, "warn", void.class, markerInterface, String.class);
+      WARN_MSO = handle(loggerInterface, "warn", void.class, markerInterface, String.class, Object.class);
+      WARN_MSOO = handle(loggerInterface, "warn", void.class, markerInterface, String.class, Object.class, Object.class);
+      WARN_MSA = handle(loggerInterface, "warn", void.class, markerInterface, String.class, Object[].class);
+      WARN_MST = handle(loggerInterface, "warn", void.class, markerInterface, String.class, Throwable.class);
+      IS_ERROR_ENABLED = handle(loggerInterface, "isErrorEnabled", boolean.class);
+      IS_ERROR_ENABLED_M = handle(loggerInterface, "isErrorEnabled", boolean.class, markerInterface);
+      ERROR_S = handle(loggerInterface, "error", void.class, String.class);
+      ERROR_SO = handle(loggerInterface, "error", void.class, String.class, Object.class);
+      ERROR_SOO = handle(loggerInterface, "error", void.class, String.class, Object.class, Object.class);
+      ERROR_SA = handle(loggerInterface, "error", void.class, String.class, Object[].class);
+      ERROR_ST = handle(loggerInterface, "error", void.class, String.class, Throwable.class);
+      ERROR_MS = handle(loggerInterface, "error", void.class, markerInterface, String.class);
+      ERROR_MSO = handle(loggerInterface, "error", void.class, markerInterface, String.class, Object.class);
+      ERROR_MSOO = handle(loggerInterface, "error", void.class, markerInterface, String.class, Object.class, Object.class);
+      ERROR_MSA = handle(loggerInterface, "error", void.class, markerInterface, String.class, Object[].class);
+      ERROR_MST = handle(loggerInterface, "error", void.class, markerInterface, String.class, Throwable.class);
+    } catch (Exception e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * 隔离类加载器里的org.slf4j.Logger实例
+   */
+  private final Object target;
+  private final LevelCache levelCache;
+
+  LoggerBridge(Object target) {
+    this.target = target;
+    this.levelCache = LevelCache.forLogger(getName());
+  }
+
+  /**
+   * 查找隔离侧的方法，并把接收者和Marker参数的类型换成Object，调用方才能用invokeExact
+   */
+  private static MethodHandle handle(Class<?> refc, String name, Class<?> rtype, Class<?>... ptypes)
+          throws NoSuchMethodException, IllegalAccessException {
+    MethodHandle methodHandle = MethodHandles.publicLookup().findVirtual(refc, name, MethodType.methodType(rtype, ptypes));
+    MethodType type = methodHandle.type().changeParameterType(0, Object.class);
+    for (int i = 1; i < type.parameterCount(); i++) {
+      // String、Object、Throwable等由启动类加载器加载，两边是同一个类，不用处理
+      if (type.parameterType(i).getClassLoader() != null) {
+        type = type.changeParameterType(i, Object.class);
+      }
+    }
+    return methodHandle.asType(type);
+  }
+
+  private static Object toIsolatedMarker(Marker marker) throws Throwable {
+    if (marker == null) {
+      return null;
+    }
+    Object isolatedMarker = GET_MARKER.invokeExact(marker.getName());
+    if (marker.hasReferences()) {
+      Iterator<Marker> iterator = marker.iterator();
+      while (iterator.hasNext()) {
+        ADD_MARKER.invokeExact(isolatedMarker, toIsolatedMarker(iterator.next()));
+      }
+    }
+    return isolatedMarker;
+  }
+
+  private static RuntimeException rethrow(Throwable e) {
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    throw new IllegalStateException(e);
+  }
+
+  @Override
+  public String getName() {
+    try {
+      return (String) GET_NAME.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isTraceEnabled() {
+    int enabled = levelCache.isEnabled(LevelCache.TRACE);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_TRACE_ENABLED.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(String msg) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_S.invokeExact(target, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_SO.invokeExact(target, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_SOO.invokeExact(target, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_SA.invokeExact(target, format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_ST.invokeExact(target, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isTraceEnabled(Marker marker) {
+    int enabled = levelCache.isEnabled(LevelCache.TRACE);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_TRACE_ENABLED_M.invokeExact(target, toIsolatedMarker(marker));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(Marker marker, String msg) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_MS.invokeExact(target, toIsolatedMarker(marker), msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(Marker marker, String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_MSO.invokeExact(target, toIsolatedMarker(marker), format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(Marker marker, String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_MSOO.invokeExact(target, toIsolatedMarker(marker), format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(Marker marker, String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_MSA.invokeExact(target, toIsolatedMarker(marker), format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void trace(Marker marker, String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.TRACE)) {
+      return;
+    }
+    try {
+      TRACE_MST.invokeExact(target, toIsolatedMarker(marker), msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isDebugEnabled() {
+    int enabled = levelCache.isEnabled(LevelCache.DEBUG);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_DEBUG_ENABLED.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(String msg) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_S.invokeExact(target, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_SO.invokeExact(target, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_SOO.invokeExact(target, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_SA.invokeExact(target, format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_ST.invokeExact(target, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isDebugEnabled(Marker marker) {
+    int enabled = levelCache.isEnabled(LevelCache.DEBUG);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_DEBUG_ENABLED_M.invokeExact(target, toIsolatedMarker(marker));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(Marker marker, String msg) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_MS.invokeExact(target, toIsolatedMarker(marker), msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(Marker marker, String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_MSO.invokeExact(target, toIsolatedMarker(marker), format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(Marker marker, String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_MSOO.invokeExact(target, toIsolatedMarker(marker), format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(Marker marker, String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_MSA.invokeExact(target, toIsolatedMarker(marker), format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void debug(Marker marker, String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.DEBUG)) {
+      return;
+    }
+    try {
+      DEBUG_MST.invokeExact(target, toIsolatedMarker(marker), msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isInfoEnabled() {
+    int enabled = levelCache.isEnabled(LevelCache.INFO);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_INFO_ENABLED.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(String msg) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_S.invokeExact(target, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_SO.invokeExact(target, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_SOO.invokeExact(target, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_SA.invokeExact(target, format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_ST.invokeExact(target, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isInfoEnabled(Marker marker) {
+    int enabled = levelCache.isEnabled(LevelCache.INFO);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_INFO_ENABLED_M.invokeExact(target, toIsolatedMarker(marker));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(Marker marker, String msg) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_MS.invokeExact(target, toIsolatedMarker(marker), msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(Marker marker, String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_MSO.invokeExact(target, toIsolatedMarker(marker), format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(Marker marker, String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_MSOO.invokeExact(target, toIsolatedMarker(marker), format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(Marker marker, String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_MSA.invokeExact(target, toIsolatedMarker(marker), format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void info(Marker marker, String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.INFO)) {
+      return;
+    }
+    try {
+      INFO_MST.invokeExact(target, toIsolatedMarker(marker), msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isWarnEnabled() {
+    int enabled = levelCache.isEnabled(LevelCache.WARN);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_WARN_ENABLED.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(String msg) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_S.invokeExact(target, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_SO.invokeExact(target, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_SOO.invokeExact(target, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_SA.invokeExact(target, format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_ST.invokeExact(target, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isWarnEnabled(Marker marker) {
+    int enabled = levelCache.isEnabled(LevelCache.WARN);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_WARN_ENABLED_M.invokeExact(target, toIsolatedMarker(marker));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(Marker marker, String msg) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_MS.invokeExact(target, toIsolatedMarker(marker), msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(Marker marker, String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_MSO.invokeExact(target, toIsolatedMarker(marker), format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(Marker marker, String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_MSOO.invokeExact(target, toIsolatedMarker(marker), format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(Marker marker, String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_MSA.invokeExact(target, toIsolatedMarker(marker), format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void warn(Marker marker, String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.WARN)) {
+      return;
+    }
+    try {
+      WARN_MST.invokeExact(target, toIsolatedMarker(marker), msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isErrorEnabled() {
+    int enabled = levelCache.isEnabled(LevelCache.ERROR);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_ERROR_ENABLED.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(String msg) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_S.invokeExact(target, msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_SO.invokeExact(target, format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_SOO.invokeExact(target, format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_SA.invokeExact(target, format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_ST.invokeExact(target, msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public boolean isErrorEnabled(Marker marker) {
+    int enabled = levelCache.isEnabled(LevelCache.ERROR);
+    if (enabled >= 0) {
+      return enabled == 1;
+    }
+    try {
+      return (boolean) IS_ERROR_ENABLED_M.invokeExact(target, toIsolatedMarker(marker));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(Marker marker, String msg) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_MS.invokeExact(target, toIsolatedMarker(marker), msg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(Marker marker, String format, Object arg) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_MSO.invokeExact(target, toIsolatedMarker(marker), format, arg);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(Marker marker, String format, Object arg1, Object arg2) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_MSOO.invokeExact(target, toIsolatedMarker(marker), format, arg1, arg2);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(Marker marker, String format, Object... arguments) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_MSA.invokeExact(target, toIsolatedMarker(marker), format, arguments);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void error(Marker marker, String msg, Throwable t) {
+    if (levelCache.isDisabled(LevelCache.ERROR)) {
+      return;
+    }
+    try {
+      ERROR_MST.invokeExact(target, toIsolatedMarker(marker), msg, t);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return target.toString();
+  }
+
+}
@@ -3,10 +3,13 @@ package cn.addenda.loglearn;
 import org.slf4j.Logger;
 
 import java.io.File;
-import java.lang.reflect.InvocationHandler;
+import java.io.IOException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class MyLoggerFactory {
 
@@ -20,42 +23,86 @@ public class MyLoggerFactory {
 
   static Class<?> logManagerClass;
   static Class<?> loggerContextClass;
+  private static Object loggerContext;
+
+  public static final String CONFIG_FILE_KEY = "log.configFile";
+  public static final String DEFAULT_CONFIG_FILE = "log4j2.xml";
+
+  public static final String ASYNC_KEY = "log.async";
+  public static final String ASYNC_RING_BUFFER_SIZE_KEY = "log.async.ringBufferSize";
+  public static final String ASYNC_WAIT_STRATEGY_KEY = "log.async.waitStrategy";
+  public static final String ASYNC_QUEUE_FULL_POLICY_KEY = "log.async.queueFullPolicy";
+  public static final String ASYNC_DISCARD_THRESHOLD_KEY = "log.async.discardThreshold";
+
+  public static final String LOGGER_CACHE_MAX_SIZE_KEY = "logger.cache.maxSize";
+  public static final String LEVEL_CACHE_KEY = "logger.levelCache";
+
+  /**
+   * logger名称 -> LoggerBridge。隔离的LoggerContext本身就强引用着所有Logger，这里只限制数量：
+   * 超过上限后不再缓存，每次都创建新的LoggerBridge
+   */
+  private static final ConcurrentHashMap<String, Logger> LOGGER_CACHE = new ConcurrentHashMap<>();
+  private static final int LOGGER_CACHE_MAX_SIZE = AgentConfig.get().getInt(LOGGER_CACHE_MAX_SIZE_KEY, 1024);
+  private static final LongAdder CACHE_HIT_COUNT = new LongAdder();
+  private static final LongAdder CACHE_MISS_COUNT = new LongAdder();
+  /**
+   * logger名称 -> AgentLogger，和LOGGER_CACHE一样限制数量
+   */
+  private static final ConcurrentHashMap<String, AgentLogger> AGENT_LOGGER_CACHE = new ConcurrentHashMap<>();
 
   static {
     try {
-      LogClassLoader6.initDefaultLoader();
+      int loaderPhase = StartupProfiler.begin("isolatedLoader");
+      try {
+        LogClassLoader6.initDefaultLoader();
+      } finally {
+        StartupProfiler.end(loaderPhase);
+      }
       LogClassLoader6 defaultLoader = LogClassLoader6.getDEFAULT_LOADER();
 
       ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
       Thread.currentThread().setContextClassLoader(defaultLoader);
+      // 异步日志的配置需要在LogManager初始化之前设置好，LoggerContext启动之后恢复
+      Map<String, String> originalProperties = applyAsyncProperties(defaultLoader);
 
       try {
-        loggerFactoryClass = Class.forName("org.slf4j.LoggerFactory", true, defaultLoader);
-        loggerFactoryClass2 = Class.forName("org.slf4j.LoggerFactory", true, defaultLoader);
-        if (loggerContextClass == loggerFactoryClass2) {
-          System.out.println("loggerContextClass == loggerContextClass2");
-        } else {
-          System.out.println("loggerContextClass != loggerContextClass2");
-        }
-        loggerInterface = Class.forName("org.slf4j.Logger", true, defaultLoader);
-        logManagerClass = Class.forName("org.apache.logging.log4j.LogManager", true, defaultLoader);
-        loggerContextClass = Class.forName("org.apache.logging.log4j.core.LoggerContext", true, defaultLoader);
+        int loggerClassesPhase = StartupProfiler.begin("loggerClasses");
+        try {
+          loggerFactoryClass = Class.forName("org.slf4j.LoggerFactory", true, defaultLoader);
+          loggerFactoryClass2 = Class.forName("org.slf4j.LoggerFactory", true, defaultLoader);
+          if (loggerContextClass == loggerFactoryClass2) {
+            System.out.println("loggerContextClass == loggerContextClass2");
+          } else {
+            System.out.println("loggerContextClass != loggerContextClass2");
+          }
+          loggerInterface = Class.forName("org.slf4j.Logger", true, defaultLoader);
+          logManagerClass = Class.forName("org.apache.logging.log4j.LogManager", true, defaultLoader);
+          loggerContextClass = Class.forName("org.apache.logging.log4j.core.LoggerContext", true, defaultLoader);
 
-        getLoggerString = loggerFactoryClass.getDeclaredMethod("getLogger", String.class);
-        getLoggerClass = loggerFactoryClass.getDeclaredMethod("getLogger", Class.class);
+          getLoggerString = loggerFactoryClass.getDeclaredMethod("getLogger", String.class);
+          getLoggerClass = loggerFactoryClass.getDeclaredMethod("getLogger", Class.class);
+        } finally {
+          StartupProfiler.end(loggerClassesPhase);
+        }
 
         File agentJarDir = AgentPackagePath.getPath();
 
-        File conFile = new File(new File(new File(AgentPackagePath.getPath(), "lib"), "log"), "log4j2.xml");
+        URI configLocation = getConfigLocation(defaultLoader);
 
 //        ConfigurationSource source = new ConfigurationSource(new FileInputStream(conFile), conFile);
 //        Configuration configuration = new XmlConfiguration(null, source);
 //        Configurator.initialize(configuration);
 
-        // config dist/lib/log/log4j2.xml
-        Method getContextMethod = logManagerClass.getDeclaredMethod("getContext", ClassLoader.class, boolean.class, URI.class);
-        Object logContext = getContextMethod.invoke(null, null, false, conFile.toURI());
+        // config dist/lib/log/log4j2.xml（或log.configFile）
+        int loggerContextPhase = StartupProfiler.begin("loggerContext");
+        try {
+          Method getContextMethod = logManagerClass.getDeclaredMethod("getContext", ClassLoader.class, boolean.class, URI.class);
+          loggerContext = getContextMethod.invoke(null, null, false, configLocation);
+        } finally {
+          StartupProfiler.end(loggerContextPhase);
+        }
       } finally {
+        restoreSystemProperties(originalProperties);
         Thread.currentThread().setContextClassLoader(contextClassLoader);
       }
 
@@ -64,13 +111,174 @@ public class MyLoggerFactory {
     }
   }
 
+  /**
+   * log.configFile是相对路径时相对于lib/log。单文件发布时磁盘上没有lib/log，使用agent jar里的lib/log/下的配置文件，
+   * 在agent jar旁边建lib/log目录放同名文件可以覆盖它。
+   */
+  private static URI getConfigLocation(LogClassLoader6 defaultLoader) {
+    String configFileName = AgentConfig.get().getString(CONFIG_FILE_KEY, DEFAULT_CONFIG_FILE);
+    File configFile = new File(configFileName);
+    if (!configFile.isAbsolute()) {
+      File logLibDir = new File(new File(AgentPackagePath.getPath(), "lib"), "log");
+      configFile = new File(logLibDir, configFileName);
+      if (!configFile.exists() && defaultLoader.isNested()) {
+        URI configLocation = URI.create("jar:" + AgentPackagePath.getJarFile().toURI()
+                + "!/" + NestedJars.PREFIX + configFileName.replace(File.separatorChar, '/'));
+        System.out.println("isolated log4j config file: " + configLocation);
+        return configLocation;
+      }
+    }
+    System.out.println("isolated log4j config file: " + configFile);
+    return configFile.toURI();
+  }
+
+  /**
+   * log.async=true时，隔离的log4j使用AsyncLoggerContextSelector，所有Logger都是异步的，业务线程只负责把事件放进RingBuffer。
+   * <p>
+   * log4j的这些配置只能通过系统属性（或log4j2.component.properties）传入，而系统属性是整个JVM共享的，
+   * 所以只在隔离的LoggerContext创建期间设置，创建完之后恢复原值，避免影响应用自己的log4j。
+   * 隔离的log4j在初始化时已经读取过这些值，恢复之后不受影响。
+   *
+   * @return 被覆盖的系统属性的原值，value为null表示原来不存在
+   */
+  private static Map<String, String> applyAsyncProperties(ClassLoader isolatedLoader) {
+    Map<String, String> originalProperties = new HashMap<>();
+    AgentConfig agentConfig = AgentConfig.get();
+    if (!agentConfig.getBoolean(ASYNC_KEY, false)) {
+      return originalProperties;
+    }
+    // 没有disruptor时log4j无法初始化，退回同步日志
+    if (isolatedLoader.getResource("com/lmax/disruptor/RingBuffer.class") == null) {
+      System.out.println("disruptor is not found in lib/log, isolated log4j falls back to sync loggers.");
+      return originalProperties;
+    }
+    setSystemProperty(originalProperties, "Log4jContextSelector",
+            "org.apache.logging.log4j.core.async.AsyncLoggerContextSelector");
+    // RingBuffer的大小，默认256 * 1024
+    setSystemProperty(originalProperties, "AsyncLogger.RingBufferSize",
+            agentConfig.getString(ASYNC_RING_BUFFER_SIZE_KEY, null));
+    // Block、Timeout、Sleep、Yield、BusySpin，默认Timeout
+    setSystemProperty(originalProperties, "AsyncLogger.WaitStrategy",
+            agentConfig.getString(ASYNC_WAIT_STRATEGY_KEY, null));
+    // RingBuffer满了之后的处理方式：Default（业务线程等待）、Discard（丢弃discardThreshold及以下级别的日志）
+    setSystemProperty(originalProperties, "log4j2.AsyncQueueFullPolicy",
+            agentConfig.getString(ASYNC_QUEUE_FULL_POLICY_KEY, null));
+    setSystemProperty(originalProperties, "log4j2.DiscardThreshold",
+            agentConfig.getString(ASYNC_DISCARD_THRESHOLD_KEY, null));
+    System.out.println("isolated log4j uses async loggers: " + originalProperties.keySet());
+    return originalProperties;
+  }
+
+  private static void setSystemProperty(Map<String, String> originalProperties, String key, String value) {
+    if (value == null) {
+      return;
+    }
+    originalProperties.put(key, System.getProperty(key));
+    System.setProperty(key, value);
+  }
+
+  private static void restoreSystemProperties(Map<String, String> originalProperties) {
+    for (Map.Entry<String, String> entry : originalProperties.entrySet()) {
+      if (entry.getValue() == null) {
+        System.clearProperty(entry.getKey());
+      } else {
+        System.setProperty(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
   public static Logger getLogger(Class<?> clazz) {
+    Logger logger = LOGGER_CACHE.get(clazz.getName());
+    if (logger != null) {
+      CACHE_HIT_COUNT.increment();
+      return logger;
+    }
+    CACHE_MISS_COUNT.increment();
+    return cacheLogger(clazz.getName(), doGetLogger(clazz));
+  }
+
+  public static Logger getLogger(String clazz) {
+    Logger logger = LOGGER_CACHE.get(clazz);
+    if (logger != null) {
+      CACHE_HIT_COUNT.increment();
+      return logger;
+    }
+    CACHE_MISS_COUNT.increment();
+    return cacheLogger(clazz, doGetLogger(clazz));
+  }
+
+  /**
+   * agent自己打日志用这个：有基本类型参数的重载，不分配内存，见{@link AgentLogger}
+   */
+  public static AgentLogger getAgentLogger(Class<?> clazz) {
+    return getAgentLogger(clazz.getName());
+  }
+
+  public static AgentLogger getAgentLogger(String name) {
+    AgentLogger logger = AGENT_LOGGER_CACHE.get(name);
+    if (logger != null) {
+      return logger;
+    }
+    logger = AgentLogger.create(name);
+    if (AGENT_LOGGER_CACHE.size() >= LOGGER_CACHE_MAX_SIZE) {
+      return logger;
+    }
+    AgentLogger existing = AGENT_LOGGER_CACHE.putIfAbsent(name, logger);
+    return existing != null ? existing : logger;
+  }
+
+  public static long getCacheHitCount() {
+    return CACHE_HIT_COUNT.sum();
+  }
+
+  public static long getCacheMissCount() {
+    return CACHE_MISS_COUNT.sum();
+  }
+
+  /**
+   * 关闭隔离的日志：停止LoggerContext（刷新、关闭appender），清空Logger缓存，再关闭隔离类加载器的jar。
+   * 之后已经拿到的Logger不再输出日志
+   */
+  public static void shutdown() {
+    try {
+      if (loggerContext != null) {
+        loggerContextClass.getMethod("stop").invoke(loggerContext);
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+    LOGGER_CACHE.clear();
+    AGENT_LOGGER_CACHE.clear();
+    LogClassLoader6 defaultLoader = LogClassLoader6.getDEFAULT_LOADER();
+    if (defaultLoader != null) {
+      try {
+        defaultLoader.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  public static int getCacheSize() {
+    return LOGGER_CACHE.size();
+  }
+
+  private static Logger cacheLogger(String name, Logger logger) {
+    if (LOGGER_CACHE.size() >= LOGGER_CACHE_MAX_SIZE) {
+      return logger;
+    }
+    // 并发创建时以先放进去的为准，保证同一个名称拿到的是同一个实例
+    Logger existing = LOGGER_CACHE.putIfAbsent(name, logger);
+    return existing != null ? existing : logger;
+  }
+
+  private static Logger doGetLogger(Class<?> clazz) {
     try {
       Object invoke = getLoggerClass.invoke(null, clazz);
 
-      // 使用代理模式包装返回的对象，避免类型转换问题
+      // 包装返回的对象，避免类型转换问题
       if (invoke != null) {
-        return createLoggerProxy(invoke);
+        return createLoggerBridge(invoke);
       }
       throw new RuntimeException(String.format("Failed to create logger %s instance", clazz));
     } catch (Exception e) {
@@ -78,32 +286,29 @@ public class MyLoggerFactory {
     }
   }
 
-  // 创建代理Logger实例来避免类加载器问题
-  private static Logger createLoggerProxy(Object loggerInstance) {
-    // 实现代理逻辑，将方法调用转发给实际的logger实例
-    // 这样可以绕过类加载器类型检查问题
-    return (Logger) Proxy.newProxyInstance(
-            MyLoggerFactory.class.getClassLoader(),
-            new Class[]{Logger.class},
-            new InvocationHandler() {
-              @Override
-              public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-                // 在目标对象上查找匹配的方法
-                Method targetMethod = loggerInstance.getClass().getMethod(
-                        method.getName(), method.getParameterTypes());
-                return targetMethod.invoke(loggerInstance, args);
-              }
-            }
-    );
+  // 用LoggerBridge包装隔离类加载器里的Logger实例，避免类加载器问题
+  private static Logger createLoggerBridge(Object loggerInstance) {
+    return new LoggerBridge(loggerInstance);
   }
 
-  public static Logger getLogger(String clazz) {
+  /**
+   * 隔离的org.apache.logging.log4j.core.LoggerContext实例
+   */
+  static Object getLoggerContext() {
+    return loggerContext;
+  }
+
+  static Class<?> getLoggerInterface() {
+    return loggerInterface;
+  }
+
+  private static Logger doGetLogger(String clazz) {
     try {
       Object invoke = getLoggerString.invoke(null, clazz);
 
-      // 使用代理模式包装返回的对象，避免类型转换问题
+      // 包装返回的对象，避免类型转换问题
       if (invoke != null) {
-        return createLoggerProxy(invoke);
+        return createLoggerBridge(invoke);
       }
       throw new RuntimeException(String.format("Failed to create logger %s instance", clazz));
     } catch (Exception e) {
@@ -0,0 +1,142 @@
+package cn.addenda.loglearn;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+/**
+ * 单文件发布：lib/log下的jar不再放在磁盘上，而是打进agent jar的lib/log/目录（mvn -P single-jar package，
+ * 得到dist/agent-learn-single.jar）。打包时在manifest里写入{@value #MANIFEST_ATTRIBUTE}属性，有这个属性时才读取agent jar里的
+ * lib/log/*.jar，磁盘上的lib/log目录不再读取；没有这个属性的agent jar不用解析整个central directory。
+ * <p>
+ * 打包时这些jar以STORED（不压缩）的方式存放，所以把agent-learn.jar整个mmap进来之后，每个内层jar就是其中的一段，
+ * 切一个ByteBuffer出来直接当jar用：用{@link JarDirectory}解析它的central directory建索引，
+ * 读class时按索引里的偏移量找到local header，解压这一个entry。不会解压到磁盘，也不用为每个内层jar打开JarFile。
+ * 内层jar被压缩过（例如被其他工具重新打包）时，在内存里解压一次。
+ * <p>
+ * 索引和目录布局一样用{@link JarIndexCache}缓存，缓存文件放在agent jar旁边（jar-index.idx），
+ * 内层jar的key里的修改时间取agent jar的；目录只读时每次启动在内存里构建。
+ */
+final class NestedJars {
+
+  static final String PREFIX = "lib/log/";
+  /**
+   * single-jar打包时写进manifest的属性，值是内层jar所在的目录{@link #PREFIX}
+   */
+  static final String MANIFEST_ATTRIBUTE = "Nested-Jars";
+
+  private final List<ByteBuffer> jarContents;
+  private final JarEntryIndex entryIndex;
+
+  private NestedJars(List<ByteBuffer> jarContents, JarEntryIndex entryIndex) {
+    this.jarContents = jarContents;
+    this.entryIndex = entryIndex;
+  }
+
+  /**
+   * 只读manifest，JVM加载agent时已经打开了这个jar，JarFile共用已经读好的central directory
+   *
+   * @return manifest里有{@value #MANIFEST_ATTRIBUTE}属性时返回true
+   */
+  static boolean isSingleJar(File agentJarFile) {
+    try (JarFile jarFile = new JarFile(agentJarFile, false)) {
+      Manifest manifest = jarFile.getManifest();
+      return manifest != null && PREFIX.equals(manifest.getMainAttributes().getValue(MANIFEST_ATTRIBUTE));
+    } catch (IOException e) {
+      System.out.println(String.format("read manifest of %s fail.", agentJarFile));
+      e.printStackTrace();
+      return false;
+    }
+  }
+
+  /**
+   * @return agent jar里没有lib/log/*.jar时返回null
+   */
+  static NestedJars open(File agentJarFile) throws IOException {
+    ByteBuffer agentJar;
+    try (FileChannel channel = FileChannel.open(agentJarFile.toPath(), StandardOpenOption.READ)) {
+      // mapping在channel关闭后依然有效
+      agentJar = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    JarDirectory agentJarDirectory = JarDirectory.parse(agentJar);
+
+    // 按名称排序，和目录布局里jar的顺序一致
+    TreeMap<String, Integer> nestedEntries = new TreeMap<>();
+    for (int i = 0; i < agentJarDirectory.size(); i++) {
+      String name = agentJarDirectory.names[i];
+      if (name.startsWith(PREFIX) && name.endsWith(".jar") && name.indexOf('/', PREFIX.length()) < 0) {
+        nestedEntries.put(name.substring(PREFIX.length()), i);
+      }
+    }
+    if (nestedEntries.isEmpty()) {
+      return null;
+    }
+
+    List<String> allJarNames = new ArrayList<>(nestedEntries.keySet());
+    List<ByteBuffer> allJarContents = JarIndexCache.scan(allJarNames, false,
+            i -> content(agentJar, agentJarDirectory, nestedEntries.get(allJarNames.get(i))));
+    List<String> jarNames = new ArrayList<>();
+    List<ByteBuffer> jarContents = new ArrayList<>();
+    List<long[]> jarKeys = new ArrayList<>();
+    for (int i = 0; i < allJarNames.size(); i++) {
+      ByteBuffer jarContent = allJarContents.get(i);
+      if (jarContent != null) {
+        jarKeys.add(JarIndexCache.jarKey(jarContent, agentJarFile.lastModified()));
+        jarNames.add(allJarNames.get(i));
+        jarContents.add(jarContent);
+      }
+    }
+
+    File indexFile = new File(agentJarFile.getParentFile(), JarIndexCache.FILE_NAME);
+    JarEntryIndex entryIndex = JarIndexCache.read(indexFile, jarNames, jarKeys);
+    if (entryIndex != null) {
+      System.out.println(String.format("read jar index %s success.", indexFile));
+      return new NestedJars(jarContents, entryIndex);
+    }
+
+    List<JarDirectory> jarDirectories = JarIndexCache.scan(jarNames, true, i -> JarDirectory.parse(jarContents.get(i)));
+    List<ByteBuffer> parsedJarContents = new ArrayList<>();
+    for (int i = 0; i < jarContents.size(); i++) {
+      if (jarDirectories.get(i) != null) {
+        parsedJarContents.add(jarContents.get(i));
+      }
+    }
+    entryIndex = JarIndexCache.build(indexFile, jarNames, jarKeys, jarDirectories);
+    return new NestedJars(parsedJarContents, entryIndex);
+  }
+
+  JarEntryIndex getEntryIndex() {
+    return entryIndex;
+  }
+
+  /**
+   * @param jarId 和{@link #getEntryIndex()}里的jar编号一致
+   * @return 内层jar的全部内容，position为0
+   */
+  ByteBuffer jarContent(int jarId) {
+    return jarContents.get(jarId).duplicate();
+  }
+
+  private static ByteBuffer content(ByteBuffer agentJar, JarDirectory agentJarDirectory, int i) throws IOException {
+    int offset = agentJarDirectory.offsets[i];
+    if (agentJarDirectory.methods[i] == ZipEntry.STORED) {
+      ByteBuffer duplicate = agentJar.duplicate();
+      int dataOffset = JarDirectory.dataOffset(duplicate, offset);
+      ((Buffer) duplicate).position(dataOffset);
+      ((Buffer) duplicate).limit(dataOffset + agentJarDirectory.sizes[i]);
+      return duplicate.slice();
+    }
+    return ByteBuffer.wrap(JarDirectory.read(agentJar, offset, agentJarDirectory.methods[i],
+            agentJarDirectory.compressedSizes[i], agentJarDirectory.sizes[i]));
+  }
+
+}
@@ -0,0 +1,53 @@
+package cn.addenda.loglearn;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 资源内容的缓存：索引里的槽位 -> 解压后的内容，按总字节数限制大小，超过之后淘汰最久没有访问的。
+ * <p>
+ * log4j创建LoggerContext时会反复读取同一批资源，例如每个jar里的Log4j2Plugins.dat、META-INF/services下的文件，
+ * 命中缓存时不用再打开jar、再解压一次。槽位在索引里唯一标识一个entry，比名称加jar编号更省事。
+ * <p>
+ * 返回的数组是共享的，调用方只能读。
+ */
+final class ResourceCache {
+
+  private final long maxBytes;
+  private long bytes;
+  private final LinkedHashMap<Integer, byte[]> contents = new LinkedHashMap<>(16, 0.75f, true);
+
+  ResourceCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  synchronized byte[] get(int slot) {
+    return contents.get(slot);
+  }
+
+  /**
+   * 单个超过maxBytes的资源不缓存
+   */
+  synchronized void put(int slot, byte[] content) {
+    if (content.length > maxBytes) {
+      return;
+    }
+    byte[] previous = contents.put(slot, content);
+    if (previous != null) {
+      bytes -= previous.length;
+    }
+    bytes += content.length;
+    Iterator<Map.Entry<Integer, byte[]>> iterator = contents.entrySet().iterator();
+    while (bytes > maxBytes && iterator.hasNext()) {
+      bytes -= iterator.next().getValue().length;
+      iterator.remove();
+    }
+  }
+
+  synchronized void clear() {
+    contents.clear();
+    bytes = 0;
+  }
+
+}
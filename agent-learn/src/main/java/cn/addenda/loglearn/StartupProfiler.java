@@ -0,0 +1,189 @@
+package cn.addenda.loglearn;
+
+import lombok.Getter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 记录agent启动的各个阶段：墙上时间、CPU时间、隔离类加载器在这个阶段里定义的类的数量和读取的字节数。
+ * <p>
+ * 阶段可以嵌套，例如premain里面包含loggerFactory，loggerFactory里面包含entryIndex。嵌套按线程算：
+ * 一个阶段的父阶段是同一个线程里还没有结束的最近一个阶段，其他线程（例如第一次创建LogClassLoader6的应用线程）互不影响。
+ * begin和end要在同一个线程里成对调用，end放在finally里，抛异常时也结束这个阶段。
+ * premain结束时（startup.report=true）打印报告，也可以通过{@link #getPhases()}、{@link #report()}拿到。
+ * <p>
+ * CPU时间来自{@link ThreadMXBean}，初始化它本身要加载一批java.lang.management的类（几十毫秒），
+ * 所以默认关闭，startup.cpuTime=true时开启；它依赖配置，所以在AgentConfig初始化之前开始的阶段没有CPU时间。
+ */
+public class StartupProfiler {
+
+  public static final String REPORT_KEY = "startup.report";
+  public static final String CPU_TIME_KEY = "startup.cpuTime";
+
+  /**
+   * 只关心启动，反复创建类加载器（例如benchmark）时不再记录
+   */
+  private static final int MAX_PHASE_COUNT = 256;
+
+  private static final List<Phase> PHASES = new ArrayList<>();
+  /**
+   * 当前线程里还没有结束的最近一个阶段
+   */
+  private static final ThreadLocal<Phase> CURRENT = new ThreadLocal<>();
+  private static ThreadMXBean threadMXBean;
+
+  private StartupProfiler() {
+  }
+
+  /**
+   * 开始一个阶段，和{@link #end(int)}成对调用
+   *
+   * @return 阶段的编号，不再记录时返回-1
+   */
+  public static synchronized int begin(String name) {
+    if (PHASES.size() >= MAX_PHASE_COUNT) {
+      return -1;
+    }
+    Phase parent = CURRENT.get();
+    Phase phase = new Phase(name, parent, parent == null ? 0 : parent.depth + 1);
+    phase.beginNanos = System.nanoTime();
+    phase.beginCpuNanos = cpuNanos();
+    phase.beginDefinedClassCount = definedClassCount();
+    phase.beginReadByteCount = readByteCount();
+    PHASES.add(phase);
+    CURRENT.set(phase);
+    return PHASES.size() - 1;
+  }
+
+  public static synchronized void end(int index) {
+    if (index < 0) {
+      return;
+    }
+    Phase phase = PHASES.get(index);
+    if (phase.ended) {
+      return;
+    }
+    phase.wallNanos = System.nanoTime() - phase.beginNanos;
+    long endCpuNanos = cpuNanos();
+    phase.cpuNanos = phase.beginCpuNanos < 0 || endCpuNanos < 0 ? -1 : endCpuNanos - phase.beginCpuNanos;
+    phase.definedClassCount = definedClassCount() - phase.beginDefinedClassCount;
+    phase.readByteCount = readByteCount() - phase.beginReadByteCount;
+    phase.ended = true;
+    if (phase.parent == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(phase.parent);
+    }
+  }
+
+  /**
+   * AgentConfig初始化之后调用，startup.cpuTime=true时开始记录CPU时间
+   */
+  static synchronized void configure(AgentConfig agentConfig) {
+    if (agentConfig.getBoolean(CPU_TIME_KEY, false) && threadMXBean == null) {
+      ThreadMXBean _threadMXBean = ManagementFactory.getThreadMXBean();
+      if (_threadMXBean.isCurrentThreadCpuTimeSupported()) {
+        threadMXBean = _threadMXBean;
+      }
+    }
+  }
+
+  /**
+   * premain结束时调用，startup.report=true时打印报告
+   */
+  static void finish(AgentConfig agentConfig) {
+    if (agentConfig.getBoolean(REPORT_KEY, true)) {
+      System.out.println(report());
+    }
+  }
+
+  /**
+   * @return 已经结束的阶段，按开始的顺序
+   */
+  public static synchronized List<Phase> getPhases() {
+    List<Phase> phases = new ArrayList<>();
+    for (Phase phase : PHASES) {
+      if (phase.ended) {
+        phases.add(phase);
+      }
+    }
+    return Collections.unmodifiableList(phases);
+  }
+
+  public static synchronized String report() {
+    StringBuilder report = new StringBuilder("agent startup report:");
+    report.append(String.format("%n  %-32s %10s %10s %8s %12s", "phase", "wall(ms)", "cpu(ms)", "classes", "bytes"));
+    for (Phase phase : getPhases()) {
+      StringBuilder name = new StringBuilder();
+      for (int i = 0; i < phase.depth; i++) {
+        name.append("  ");
+      }
+      name.append(phase.name);
+      report.append(String.format("%n  %-32s %10.3f %10s %8d %12d", name, phase.wallNanos / 1e6,
+              phase.cpuNanos < 0 ? "-" : String.format("%.3f", phase.cpuNanos / 1e6),
+              phase.definedClassCount, phase.readByteCount));
+    }
+    report.append(String.format("%n  isolated loader total: %s classes defined, %s bytes read.",
+            definedClassCount(), readByteCount()));
+    return report.toString();
+  }
+
+  private static long cpuNanos() {
+    return threadMXBean == null ? -1 : threadMXBean.getCurrentThreadCpuTime();
+  }
+
+  private static long definedClassCount() {
+    LogClassLoader6 defaultLoader = LogClassLoader6.getDEFAULT_LOADER();
+    return defaultLoader == null ? 0 : defaultLoader.getMetrics().getDefinedClassCount();
+  }
+
+  private static long readByteCount() {
+    LogClassLoader6 defaultLoader = LogClassLoader6.getDEFAULT_LOADER();
+    return defaultLoader == null ? 0 : defaultLoader.getMetrics().getJarReadByteCount();
+  }
+
+  public static class Phase {
+    @Getter
+    private final String name;
+    private final Phase parent;
+    /**
+     * 嵌套的层数，最外层是0
+     */
+    @Getter
+    private final int depth;
+    @Getter
+    private long wallNanos;
+    /**
+     * 没有开启startup.cpuTime时为-1
+     */
+    @Getter
+    private long cpuNanos = -1;
+    /**
+     * 隔离类加载器定义的类的数量
+     */
+    @Getter
+    private long definedClassCount;
+    /**
+     * 隔离类加载器读取的class字节数
+     */
+    @Getter
+    private long readByteCount;
+
+    private long beginNanos;
+    private long beginCpuNanos;
+    private long beginDefinedClassCount;
+    private long beginReadByteCount;
+    private boolean ended;
+
+    Phase(String name, Phase parent, int depth) {
+      this.name = name;
+      this.parent = parent;
+      this.depth = depth;
+    }
+  }
+
+}
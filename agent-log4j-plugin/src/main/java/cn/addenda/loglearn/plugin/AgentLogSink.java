@@ -0,0 +1,389 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.filter.CompositeFilter;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+
+/**
+ * agent侧AgentLogger的隔离侧实现，由agent侧按方法签名解析成MethodHandle调用，所以这里只用启动类加载器的类型和基本类型。
+ * <p>
+ * 每个方法先按级别过滤，再把格式和参数放进当前线程复用的{@link AgentMessage}，用ExtendedLogger.logIfEnabled交给log4j：
+ * 不创建参数数组，基本类型不装箱，也不创建ParameterizedMessage。log4j自己开启了ThreadLocal（默认）时，
+ * 事件对象也是复用的，稳定运行时一次日志调用不分配内存。
+ * <p>
+ * level是AgentLogger里的编号：0 trace、1 debug、2 info、3 warn、4 error。
+ */
+public final class AgentLogSink {
+
+  /**
+   * 位置信息（%C、%L等）从调用AgentLogger的那一帧开始
+   */
+  private static final String FQCN = "cn.addenda.loglearn.AgentLogger";
+
+  /**
+   * {@link #enabledLevels(Object)}里表示是否开启只取决于级别的位
+   */
+  public static final int EXACT = 1 << 5;
+
+  private static final Level[] LEVELS = {Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+
+  private static final ThreadLocal<AgentMessage> MESSAGE = ThreadLocal.withInitial(AgentMessage::new);
+
+  private AgentLogSink() {
+  }
+
+  /**
+   * @param loggerContext agent侧创建的隔离LoggerContext（MyLoggerFactory按log.configFile创建的那个），
+   *                      和slf4j的Logger用同一份配置
+   */
+  public static Object getLogger(String name, Object loggerContext) {
+    return ((LoggerContext) loggerContext).getLogger(name);
+  }
+
+  public static boolean isEnabled(Object logger, int level) {
+    return ((ExtendedLogger) logger).isEnabled(LEVELS[level]);
+  }
+
+  /**
+   * 第i位表示编号为i的级别按Logger的级别是否开启；第{@link #EXACT}位表示是否开启只取决于级别。
+   * <p>
+   * 配置里有context级别的filter（例如{@link RateLimitFilter}）时，开启了的级别还要看filter，不是确定的；
+   * 但filter不会返回ACCEPT时，没有开启的级别一定被过滤，仍然可以缓存。filter可能返回ACCEPT时返回-1
+   */
+  public static int enabledLevels(Object logger) {
+    Logger _logger = (Logger) logger;
+    Filter filter = _logger.getContext().getConfiguration().getFilter();
+    if (filter != null && mayAccept(filter)) {
+      return -1;
+    }
+    int enabledLevels = filter == null ? EXACT : 0;
+    for (int i = 0; i < LEVELS.length; i++) {
+      if (_logger.getLevel().isLessSpecificThan(LEVELS[i])) {
+        enabledLevels |= 1 << i;
+      }
+    }
+    return enabledLevels;
+  }
+
+  private static boolean mayAccept(Filter filter) {
+    if (filter instanceof CompositeFilter) {
+      for (Filter child : ((CompositeFilter) filter).getFiltersArray()) {
+        if (mayAccept(child)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return filter.getOnMatch() == Filter.Result.ACCEPT || filter.getOnMismatch() == Filter.Result.ACCEPT;
+  }
+
+  /**
+   * 配置变化（重新加载配置文件、Configurator.setLevel等，都会调用LoggerContext.updateLoggers）之后调用listener
+   */
+  public static void addConfigurationListener(Object loggerContext, Runnable listener) {
+    ((LoggerContext) loggerContext).addPropertyChangeListener(event -> {
+      if (LoggerContext.PROPERTY_CONFIG.equals(event.getPropertyName())) {
+        listener.run();
+      }
+    });
+  }
+
+  public static void log(Object logger, int level, String msg) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(msg));
+    }
+  }
+
+  public static void log(Object logger, int level, String msg, Throwable t) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(msg).setThrowable(t));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, Object arg2) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, double arg) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, boolean arg) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, long arg2) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, long arg2) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, Object arg2) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, Object arg2, Object arg3) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, Object arg2, long arg3) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, long arg2, Object arg3) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, long arg2, long arg3) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, Object arg2, Object arg3) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, Object arg2, long arg3) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, long arg2, Object arg3) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, long arg2, long arg3) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, Object arg2, Object arg3, long arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, Object arg2, long arg3, Object arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, Object arg2, long arg3, long arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, long arg2, Object arg3, Object arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, long arg2, Object arg3, long arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, long arg2, long arg3, Object arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, Object arg1, long arg2, long arg3, long arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, Object arg2, Object arg3, Object arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, Object arg2, Object arg3, long arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, Object arg2, long arg3, Object arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, Object arg2, long arg3, long arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, long arg2, Object arg3, Object arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, long arg2, Object arg3, long arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4));
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, long arg2, long arg3, Object arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4).extractThrowable());
+    }
+  }
+
+  public static void log(Object logger, int level, String format, long arg1, long arg2, long arg3, long arg4) {
+    ExtendedLogger _logger = (ExtendedLogger) logger;
+    Level _level = LEVELS[level];
+    if (_logger.isEnabled(_level)) {
+      log(_logger, _level, reserve().set(format).add(arg1).add(arg2).add(arg3).add(arg4));
+    }
+  }
+
+  /**
+   * 参数的toString里又打日志时，当前线程的消息正在用，这一次新建一个
+   */
+  private static AgentMessage reserve() {
+    AgentMessage message = MESSAGE.get();
+    if (message.reserved) {
+      return new AgentMessage();
+    }
+    message.reserved = true;
+    return message;
+  }
+
+  /**
+   * 前面只按级别判断过，context级别的filter（例如{@link RateLimitFilter}）要带着消息再判断一次，所以用logIfEnabled
+   */
+  private static void log(ExtendedLogger logger, Level level, AgentMessage message) {
+    try {
+      logger.logIfEnabled(FQCN, level, null, message, message.getThrowable());
+    } finally {
+      message.clear();
+    }
+  }
+
+}
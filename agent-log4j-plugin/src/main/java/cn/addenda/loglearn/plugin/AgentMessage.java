@@ -0,0 +1,217 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ReusableMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.StringBuilders;
+
+/**
+ * {@link AgentLogSink}每个线程复用的消息：格式和ParameterizedMessage一样用{}做占位符，\{}输出{}本身，
+ * 参数可以是long、double、boolean，直接append到StringBuilder里，不装箱。
+ * <p>
+ * log4j创建事件时调用{@link #formatTo(StringBuilder)}把内容写进事件自己的StringBuilder（MutableLogEvent、RingBufferLogEvent），
+ * 需要保留消息时（例如AsyncAppender）调用{@link #memento()}，所以日志调用返回之后这个对象就可以给下一次用。
+ * <p>
+ * 参数不交给事件（{@link #swapParameters(Object[])}原样返回、{@link #getParameterCount()}为0），
+ * 否则基本类型的参数还是要装箱；布局里用不到事件的参数。
+ */
+final class AgentMessage implements ReusableMessage {
+
+  private static final long serialVersionUID = 1L;
+
+  static final int MAX_PARAMETERS = 4;
+
+  private static final byte OBJECT = 0;
+  private static final byte LONG = 1;
+  private static final byte DOUBLE = 2;
+  private static final byte BOOLEAN = 3;
+
+  private String format;
+  private int parameterCount;
+  private final byte[] kinds = new byte[MAX_PARAMETERS];
+  private final long[] longs = new long[MAX_PARAMETERS];
+  private final double[] doubles = new double[MAX_PARAMETERS];
+  private final Object[] objects = new Object[MAX_PARAMETERS];
+  private Throwable throwable;
+
+  /**
+   * 当前线程正在用这个对象，参数的toString里又打日志时不能覆盖它，见{@link AgentLogSink}
+   */
+  boolean reserved;
+
+  AgentMessage set(String format) {
+    this.format = format;
+    return this;
+  }
+
+  AgentMessage add(Object value) {
+    kinds[parameterCount] = OBJECT;
+    objects[parameterCount++] = value;
+    return this;
+  }
+
+  AgentMessage add(long value) {
+    kinds[parameterCount] = LONG;
+    longs[parameterCount++] = value;
+    return this;
+  }
+
+  AgentMessage add(double value) {
+    kinds[parameterCount] = DOUBLE;
+    doubles[parameterCount++] = value;
+    return this;
+  }
+
+  AgentMessage add(boolean value) {
+    kinds[parameterCount] = BOOLEAN;
+    longs[parameterCount++] = value ? 1 : 0;
+    return this;
+  }
+
+  /**
+   * 和slf4j一样：最后一个参数是Throwable、且格式里的占位符比参数少时，它是异常而不是参数
+   */
+  AgentMessage setThrowable(Throwable throwable) {
+    this.throwable = throwable;
+    return this;
+  }
+
+  AgentMessage extractThrowable() {
+    if (parameterCount > 0 && kinds[parameterCount - 1] == OBJECT && objects[parameterCount - 1] instanceof Throwable
+            && countPlaceholders(format) < parameterCount) {
+      throwable = (Throwable) objects[--parameterCount];
+      objects[parameterCount] = null;
+    }
+    return this;
+  }
+
+  void clear() {
+    format = null;
+    for (int i = 0; i < parameterCount; i++) {
+      objects[i] = null;
+    }
+    parameterCount = 0;
+    throwable = null;
+    reserved = false;
+  }
+
+  @Override
+  public void formatTo(StringBuilder buffer) {
+    String _format = format;
+    if (_format == null) {
+      buffer.append((String) null);
+      return;
+    }
+    int length = _format.length();
+    int start = 0;
+    int parameterIndex = 0;
+    for (int i = 0; i < length - 1; i++) {
+      char c = _format.charAt(i);
+      if (c == '\\' && _format.charAt(i + 1) == '{') {
+        // 去掉转义符，{照常输出，它后面的}不再当作占位符
+        buffer.append(_format, start, i);
+        start = i + 1;
+        i++;
+      } else if (c == '{' && _format.charAt(i + 1) == '}' && parameterIndex < parameterCount) {
+        buffer.append(_format, start, i);
+        appendParameter(buffer, parameterIndex++);
+        start = i + 2;
+        i++;
+      }
+    }
+    buffer.append(_format, start, length);
+  }
+
+  private void appendParameter(StringBuilder buffer, int index) {
+    switch (kinds[index]) {
+      case LONG:
+        buffer.append(longs[index]);
+        break;
+      case DOUBLE:
+        buffer.append(doubles[index]);
+        break;
+      case BOOLEAN:
+        buffer.append(longs[index] != 0);
+        break;
+      default:
+        StringBuilders.appendValue(buffer, objects[index]);
+    }
+  }
+
+  private static int countPlaceholders(String format) {
+    if (format == null) {
+      return 0;
+    }
+    int count = 0;
+    for (int i = 0; i < format.length() - 1; i++) {
+      char c = format.charAt(i);
+      if (c == '\\' && format.charAt(i + 1) == '{') {
+        i++;
+      } else if (c == '{' && format.charAt(i + 1) == '}') {
+        count++;
+        i++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public String getFormattedMessage() {
+    StringBuilder buffer = new StringBuilder(64);
+    formatTo(buffer);
+    return buffer.toString();
+  }
+
+  @Override
+  public String getFormat() {
+    return format;
+  }
+
+  /**
+   * 只在需要参数本身的地方调用（不在日志的正常路径上），基本类型的参数装箱返回
+   */
+  @Override
+  public Object[] getParameters() {
+    Object[] parameters = new Object[parameterCount];
+    for (int i = 0; i < parameterCount; i++) {
+      switch (kinds[i]) {
+        case LONG:
+          parameters[i] = longs[i];
+          break;
+        case DOUBLE:
+          parameters[i] = doubles[i];
+          break;
+        case BOOLEAN:
+          parameters[i] = longs[i] != 0;
+          break;
+        default:
+          parameters[i] = objects[i];
+      }
+    }
+    return parameters;
+  }
+
+  @Override
+  public Throwable getThrowable() {
+    return throwable;
+  }
+
+  @Override
+  public Object[] swapParameters(Object[] emptyReplacement) {
+    return emptyReplacement;
+  }
+
+  @Override
+  public short getParameterCount() {
+    return 0;
+  }
+
+  /**
+   * 格式化好的文本，不再引用参数
+   */
+  @Override
+  public Message memento() {
+    return new SimpleMessage(getFormattedMessage());
+  }
+
+}
@@ -0,0 +1,207 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractOutputStreamAppender;
+import org.apache.logging.log4j.core.appender.rolling.RollingFileManager;
+import org.apache.logging.log4j.core.appender.rolling.RolloverListener;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.pattern.ConverterKeys;
+import org.apache.logging.log4j.core.pattern.PatternConverter;
+import org.apache.logging.log4j.core.pattern.ThrowablePatternConverter;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 异常堆栈去重：%dEx。按异常类型和所有栈帧（包括cause链）算一个指纹，同一个指纹在同一个级别第一次出现时输出完整的堆栈，
+ * 第一行前面加上[stack:id]；之后只输出一行[stack:id]和异常的toString()，不再渲染整个堆栈。
+ * 用{@link StackTraceExpander}可以把日志文件里只有id的异常还原成完整的堆栈。
+ * <pre>
+ * &lt;property name="LOG_PATTERN"&gt;%date [%thread] %-5level %logger{36} - %msg%n%dEx&lt;/property&gt;
+ * </pre>
+ * 选项和%ex一样（例如%dEx{short}），只影响第一次输出的完整堆栈。
+ * <p>
+ * 是否输出过按指纹和级别一起判断：{@link FanOutAppender}格式化一次写到多个文件，各个文件按ThresholdFilter收不同级别的事件，
+ * 例如INFO第一次输出的完整堆栈只在info.log里，之后同样堆栈的ERROR如果只有id，error.log就没法单独还原。
+ * 按级别判断之后，只按级别（ThresholdFilter、LevelRangeFilter、AppenderRef的level）筛选事件的文件都能单独还原；
+ * 按其他条件（例如MarkerFilter）筛选的文件不保证。
+ * <p>
+ * 为了让每个文件自己就能还原，配置里的RollingFile、RollingRandomAccessFile、{@link MappedRingFileAppender}
+ * 任何一个换了新文件时，已经输出过的指纹全部作废，之后第一次出现时重新输出完整的堆栈。
+ * RollingFile和{@link FanOutAppender}在格式化之前检查滚动，MappedRingFile换了新文件时重新格式化触发的那一条事件，
+ * 所以新文件的第一条事件是完整的；多个线程同时写时，滚动之前格式化的事件仍然可能只有id，还原时把上一个文件一起传进去。
+ * 已经输出过的指纹超过capacity个时也全部作废。
+ * <p>
+ * 控制台不要用%dEx：控制台的输出没法还原。
+ */
+@Plugin(name = "DedupThrowablePatternConverter", category = PatternConverter.CATEGORY)
+@ConverterKeys({"dEx", "dedupException"})
+public final class DedupThrowablePatternConverter extends ThrowablePatternConverter {
+
+  /**
+   * 每一个完整堆栈和只有id的异常行都以它开头，后面跟12位十六进制的id和]
+   */
+  public static final String ID_PREFIX = "[stack:";
+  public static final int ID_LENGTH = 12;
+
+  /**
+   * 输出的id是指纹的低48位，seen里的key在高16位加上级别
+   */
+  private static final long ID_MASK = (1L << ID_LENGTH * 4) - 1;
+  private static final int CAPACITY = 4096;
+  /**
+   * cause链最多算多少层，防止循环引用
+   */
+  private static final int MAX_CAUSE_DEPTH = 32;
+  /**
+   * 注册到manager上的listener。manager在新旧配置之间共享，旧配置的converter不再使用之后，
+   * 下一次注册时把它们的listener从manager上摘掉
+   */
+  private static final Set<Reset> RESETS = ConcurrentHashMap.newKeySet();
+
+  private final Configuration configuration;
+  private final Set<Long> seen = ConcurrentHashMap.newKeySet();
+  private volatile boolean listening;
+
+  private DedupThrowablePatternConverter(Configuration configuration, String[] options) {
+    super("DedupThrowable", "throwable", options, configuration);
+    this.configuration = configuration;
+  }
+
+  public static DedupThrowablePatternConverter newInstance(Configuration configuration, String[] options) {
+    return new DedupThrowablePatternConverter(configuration, options);
+  }
+
+  @Override
+  public void format(LogEvent event, StringBuilder buffer) {
+    Throwable t = event.getThrown();
+    if (t == null || !options.anyLines()) {
+      return;
+    }
+    if (!listening) {
+      listen();
+    }
+    long id = fingerprint(t) & ID_MASK;
+    if (seen.size() >= CAPACITY) {
+      seen.clear();
+    }
+    int len = buffer.length();
+    if (len > 0 && !Character.isWhitespace(buffer.charAt(len - 1))) {
+      buffer.append(' ');
+    }
+    appendId(buffer, id);
+    if (seen.add(id | (long) (event.getLevel().intLevel() & 0xFFFF) << ID_LENGTH * 4)) {
+      super.format(event, buffer);
+    } else {
+      buffer.append(t).append(options.getSeparator());
+    }
+  }
+
+  private static void appendId(StringBuilder buffer, long id) {
+    buffer.append(ID_PREFIX);
+    for (int shift = (ID_LENGTH - 1) * 4; shift >= 0; shift -= 4) {
+      buffer.append(Character.forDigit((int) (id >>> shift) & 0xF, 16));
+    }
+    buffer.append("] ");
+  }
+
+  /**
+   * FNV-1a：异常类型和每一帧的hashCode，消息不算；suppressed异常不算
+   */
+  private static long fingerprint(Throwable t) {
+    long hash = 0xcbf29ce484222325L;
+    Throwable cause = t;
+    for (int depth = 0; cause != null && depth < MAX_CAUSE_DEPTH; depth++) {
+      hash = (hash ^ cause.getClass().getName().hashCode()) * 0x100000001b3L;
+      for (StackTraceElement element : cause.getStackTrace()) {
+        hash = (hash ^ element.hashCode()) * 0x100000001b3L;
+      }
+      cause = cause.getCause() == cause ? null : cause.getCause();
+    }
+    return hash;
+  }
+
+  /**
+   * 第一次格式化的时候appender都已经创建好了，这时再注册滚动的listener。
+   * listener只弱引用这个converter，重新加载配置之后旧的converter可以回收
+   */
+  private synchronized void listen() {
+    if (listening) {
+      return;
+    }
+    for (Iterator<Reset> iterator = RESETS.iterator(); iterator.hasNext(); ) {
+      Reset reset = iterator.next();
+      if (reset.isStale()) {
+        reset.remove();
+        iterator.remove();
+      }
+    }
+    for (Appender appender : configuration.getAppenders().values()) {
+      if (appender instanceof AbstractOutputStreamAppender
+              && ((AbstractOutputStreamAppender<?>) appender).getManager() instanceof RollingFileManager) {
+        Reset reset = new Reset(this, (RollingFileManager) ((AbstractOutputStreamAppender<?>) appender).getManager(), null);
+        reset.rollingFileManager.addRolloverListener(reset);
+        RESETS.add(reset);
+      } else if (appender instanceof MappedRingFileAppender) {
+        Reset reset = new Reset(this, null, ((MappedRingFileAppender) appender).getManager());
+        reset.mappedRingFileManager.addRollListener(reset);
+        RESETS.add(reset);
+      }
+    }
+    listening = true;
+  }
+
+  private static final class Reset implements RolloverListener, Runnable {
+    private final WeakReference<DedupThrowablePatternConverter> converter;
+    private final RollingFileManager rollingFileManager;
+    private final MappedRingFileManager mappedRingFileManager;
+
+    Reset(DedupThrowablePatternConverter converter, RollingFileManager rollingFileManager,
+          MappedRingFileManager mappedRingFileManager) {
+      this.converter = new WeakReference<>(converter);
+      this.rollingFileManager = rollingFileManager;
+      this.mappedRingFileManager = mappedRingFileManager;
+    }
+
+    /**
+     * converter已经回收，或者它的配置已经停止（重新加载了配置）
+     */
+    boolean isStale() {
+      DedupThrowablePatternConverter _converter = converter.get();
+      return _converter == null || _converter.configuration.isStopped();
+    }
+
+    void remove() {
+      if (rollingFileManager != null) {
+        rollingFileManager.removeRolloverListener(this);
+      } else {
+        mappedRingFileManager.removeRollListener(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      DedupThrowablePatternConverter _converter = converter.get();
+      if (_converter != null) {
+        _converter.seen.clear();
+      }
+    }
+
+    /**
+     * 新文件的第一条事件写进去之前调用
+     */
+    @Override
+    public void rolloverTriggered(String fileName) {
+      run();
+    }
+
+    @Override
+    public void rolloverComplete(String fileName) {
+    }
+  }
+
+}
@@ -0,0 +1,74 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * layout编码的目的地：一块按需扩容的堆内buffer，编码完整个事件之后再统一写给各个目标。
+ * 每个appender每个线程一个，见{@link FanOutAppender}、{@link MappedRingFileAppender}
+ */
+final class EncodedEvent implements ByteBufferDestination {
+
+  private static final int INITIAL_CAPACITY = 8 * 1024;
+  /**
+   * 偶尔的超大事件（例如很长的堆栈）把buffer撑大后，不让它一直占着线程的内存
+   */
+  private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+  private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+  void clear() {
+    ((Buffer) buffer).clear();
+  }
+
+  void trim() {
+    if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+      buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+    }
+  }
+
+  byte[] array() {
+    return buffer.array();
+  }
+
+  int length() {
+    return buffer.position();
+  }
+
+  @Override
+  public ByteBuffer getByteBuffer() {
+    return buffer;
+  }
+
+  /**
+   * 不往外写，只扩容：buffer里已有的内容保留，返回有更多剩余空间的buffer
+   */
+  @Override
+  public ByteBuffer drain(ByteBuffer buf) {
+    return ensureRemaining(buf.capacity());
+  }
+
+  @Override
+  public void writeBytes(ByteBuffer data) {
+    ensureRemaining(data.remaining()).put(data);
+  }
+
+  @Override
+  public void writeBytes(byte[] data, int offset, int length) {
+    ensureRemaining(length).put(data, offset, length);
+  }
+
+  private ByteBuffer ensureRemaining(int remaining) {
+    if (buffer.remaining() < remaining) {
+      int capacity = Math.max(buffer.capacity() * 2, buffer.position() + remaining);
+      ByteBuffer bigger = ByteBuffer.allocate(capacity);
+      ((Buffer) buffer).flip();
+      bigger.put(buffer);
+      buffer = bigger;
+    }
+    return buffer;
+  }
+
+}
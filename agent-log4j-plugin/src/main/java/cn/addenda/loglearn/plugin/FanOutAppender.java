@@ -0,0 +1,262 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.appender.AbstractOutputStreamAppender;
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.apache.logging.log4j.core.appender.OutputStreamManager;
+import org.apache.logging.log4j.core.appender.rolling.RollingFileManager;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.validation.constraints.Required;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个事件只格式化、编码一次，然后把同一份字节写到多个输出目标。
+ * <p>
+ * 原来root上挂了Console、Filelog、RollingFileInfo、RollingFileWarn、RollingFileError五个appender，
+ * 每个appender都用自己的PatternLayout把同一个事件格式化一遍，INFO事件格式化3次（另外两次被ThresholdFilter拒绝），
+ * WARN 4次，ERROR 5次。FanOut用自己的layout把事件编码到线程私有的buffer里，
+ * 再按AppenderRef的level、filter以及目标appender自己的filter决定写哪些目标，直接写目标的{@link OutputStreamManager}。
+ * <p>
+ * 目标必须是{@link AbstractOutputStreamAppender}（Console、File、RollingFile、RandomAccessFile等）或{@link MappedRingFileAppender}，
+ * 并且layout要和FanOut的一样（同样的pattern和charset），否则不作为目标：写出去的是FanOut格式化的字节，
+ * 不能让目标自己的layout看起来还在生效。layout不一样的appender（例如带颜色的Console）直接挂在logger上。
+ * RollingFile的滚动仍然由它的{@link RollingFileManager}在写之前检查，按大小滚动时写入的字节数也照常累计，所以滚动的行为和原来一致。
+ * <pre>
+ * &lt;FanOut name="FanOut"&gt;
+ *   &lt;PatternLayout pattern="${LOG_PATTERN}"/&gt;
+ *   &lt;AppenderRef ref="Filelog"/&gt;
+ *   &lt;AppenderRef ref="RollingFileWarn" level="warn"/&gt;
+ * &lt;/FanOut&gt;
+ * </pre>
+ */
+@Plugin(name = FanOutAppender.PLUGIN_NAME, category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE, printObject = true)
+public final class FanOutAppender extends AbstractAppender {
+
+  public static final String PLUGIN_NAME = "FanOut";
+
+  private final Configuration configuration;
+  private final AppenderRef[] appenderRefs;
+  private final ThreadLocal<EncodedEvent> encodedEvent = ThreadLocal.withInitial(EncodedEvent::new);
+  /**
+   * 当前事件写哪些目标，和targets一一对应
+   */
+  private final ThreadLocal<boolean[]> accepted = ThreadLocal.withInitial(() -> new boolean[0]);
+  private volatile Target[] targets = new Target[0];
+
+  private final LongAdder encodedEventCount = new LongAdder();
+  private final LongAdder encodedByteCount = new LongAdder();
+  private final LongAdder writtenByteCount = new LongAdder();
+
+  private FanOutAppender(String name, Filter filter, Layout<? extends Serializable> layout, boolean ignoreExceptions,
+                         Property[] properties, Configuration configuration, AppenderRef[] appenderRefs) {
+    super(name, filter, layout, ignoreExceptions, properties);
+    this.configuration = configuration;
+    this.appenderRefs = appenderRefs;
+  }
+
+  @PluginBuilderFactory
+  public static <B extends Builder<B>> B newBuilder() {
+    return new Builder<B>().asBuilder();
+  }
+
+  /**
+   * 目标appender在start之前都已经创建好了，这里按名称找到它们
+   */
+  @Override
+  public void start() {
+    List<Target> _targets = new ArrayList<>();
+    for (AppenderRef appenderRef : appenderRefs) {
+      Appender appender = configuration.getAppender(appenderRef.getRef());
+      if (appender == null) {
+        error(String.format("FanOut %s: appender %s not found.", getName(), appenderRef.getRef()));
+      } else if (!(appender instanceof AbstractOutputStreamAppender) && !(appender instanceof MappedRingFileAppender)) {
+        error(String.format("FanOut %s: appender %s is not an output stream appender.", getName(), appenderRef.getRef()));
+      } else if (!sameLayout(getLayout(), appender.getLayout())) {
+        error(String.format("FanOut %s: appender %s has a different layout %s, reference it from the logger instead.",
+                getName(), appenderRef.getRef(), appender.getLayout()));
+      } else {
+        _targets.add(new Target(appenderRef, (AbstractAppender) appender));
+      }
+    }
+    targets = _targets.toArray(new Target[0]);
+    super.start();
+  }
+
+  /**
+   * PatternLayout比较pattern（或PatternSelector）和charset，其他layout只有同一个对象才算一样
+   */
+  private static boolean sameLayout(Layout<?> layout, Layout<?> other) {
+    if (layout == other) {
+      return true;
+    }
+    if (!(layout instanceof PatternLayout) || !(other instanceof PatternLayout)) {
+      return false;
+    }
+    return layout.toString().equals(other.toString())
+            && ((PatternLayout) layout).getCharset().equals(((PatternLayout) other).getCharset());
+  }
+
+  /**
+   * 先按level、filter决定写哪些目标，并检查这些目标的滚动，再格式化：触发滚动的那一条事件写在新文件里，
+   * 格式化时{@link DedupThrowablePatternConverter}已经清空，堆栈完整输出
+   */
+  @Override
+  public void append(LogEvent event) {
+    Target[] _targets = targets;
+    boolean[] _accepted = accepted.get();
+    if (_accepted.length != _targets.length) {
+      _accepted = new boolean[_targets.length];
+      accepted.set(_accepted);
+    }
+    for (int i = 0; i < _targets.length; i++) {
+      _accepted[i] = _targets[i].accept(event);
+      if (_accepted[i]) {
+        _targets[i].checkRollover(event);
+      }
+    }
+    EncodedEvent _encodedEvent = encodedEvent.get();
+    encode(event, _encodedEvent);
+
+    for (int i = 0; i < _targets.length; i++) {
+      if (!_accepted[i]) {
+        continue;
+      }
+      Target target = _targets[i];
+      try {
+        // MappedRingFile写之前换了新文件，重新格式化之后再写
+        while (!target.write(event, _encodedEvent.array(), _encodedEvent.length())) {
+          encode(event, _encodedEvent);
+        }
+        writtenByteCount.add(_encodedEvent.length());
+      } catch (AppenderLoggingException e) {
+        error(String.format("FanOut %s: unable to write to %s.", getName(), target.appender.getName()), event, e);
+        if (!ignoreExceptions()) {
+          throw e;
+        }
+      }
+    }
+    _encodedEvent.trim();
+  }
+
+  private void encode(LogEvent event, EncodedEvent _encodedEvent) {
+    _encodedEvent.clear();
+    getLayout().encode(event, _encodedEvent);
+    encodedEventCount.increment();
+    encodedByteCount.add(_encodedEvent.length());
+  }
+
+  /**
+   * 编码过的事件数，每个事件只编码一次（MappedRingFile换了新文件时再编码一次）
+   */
+  public long getEncodedEventCount() {
+    return encodedEventCount.sum();
+  }
+
+  /**
+   * 编码产生的字节数
+   */
+  public long getEncodedByteCount() {
+    return encodedByteCount.sum();
+  }
+
+  /**
+   * 写到各个目标的字节数之和
+   */
+  public long getWrittenByteCount() {
+    return writtenByteCount.sum();
+  }
+
+  private static final class Target {
+    private final AppenderRef appenderRef;
+    private final AbstractAppender appender;
+    private final MappedRingFileAppender mappedRingFileAppender;
+    private final OutputStreamManager manager;
+    private final RollingFileManager rollingFileManager;
+    private final boolean immediateFlush;
+
+    Target(AppenderRef appenderRef, AbstractAppender appender) {
+      this.appenderRef = appenderRef;
+      this.appender = appender;
+      if (appender instanceof MappedRingFileAppender) {
+        this.mappedRingFileAppender = (MappedRingFileAppender) appender;
+        this.manager = null;
+        this.immediateFlush = false;
+      } else {
+        AbstractOutputStreamAppender<?> outputStreamAppender = (AbstractOutputStreamAppender<?>) appender;
+        this.mappedRingFileAppender = null;
+        this.manager = outputStreamAppender.getManager();
+        this.immediateFlush = outputStreamAppender.getImmediateFlush();
+      }
+      this.rollingFileManager = manager instanceof RollingFileManager ? (RollingFileManager) manager : null;
+    }
+
+    /**
+     * 和root直接引用appender时的判断一致：AppenderRef的level、AppenderRef的filter、appender自己的filter
+     */
+    boolean accept(LogEvent event) {
+      if (appenderRef.getLevel() != null && !event.getLevel().isMoreSpecificThan(appenderRef.getLevel())) {
+        return false;
+      }
+      Filter refFilter = appenderRef.getFilter();
+      if (refFilter != null && refFilter.filter(event) == Filter.Result.DENY) {
+        return false;
+      }
+      return appender.isStarted() && !appender.isFiltered(event);
+    }
+
+    void checkRollover(LogEvent event) {
+      if (rollingFileManager != null) {
+        rollingFileManager.checkRollover(event);
+      }
+    }
+
+    /**
+     * @return false表示MappedRingFile写之前换了新文件，事件没有写，要重新格式化
+     */
+    boolean write(LogEvent event, byte[] bytes, int length) {
+      if (mappedRingFileAppender != null) {
+        return mappedRingFileAppender.write(event, bytes, length);
+      }
+      manager.writeBytes(bytes, 0, length);
+      if (immediateFlush || event.isEndOfBatch()) {
+        manager.flush();
+      }
+      return true;
+    }
+  }
+
+  public static class Builder<B extends Builder<B>> extends AbstractAppender.Builder<B>
+          implements org.apache.logging.log4j.core.util.Builder<FanOutAppender> {
+
+    @PluginElement("AppenderRef")
+    @Required(message = "No appender references provided to FanOut")
+    private AppenderRef[] appenderRefs;
+
+    public B setAppenderRefs(AppenderRef... appenderRefs) {
+      this.appenderRefs = appenderRefs;
+      return asBuilder();
+    }
+
+    @Override
+    public FanOutAppender build() {
+      return new FanOutAppender(getName(), getFilter(), getOrCreateLayout(), isIgnoreExceptions(),
+              getPropertyArray(), getConfiguration(), appenderRefs);
+    }
+  }
+
+}
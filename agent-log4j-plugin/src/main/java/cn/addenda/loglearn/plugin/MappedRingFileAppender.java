@@ -0,0 +1,177 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.apache.logging.log4j.core.appender.rolling.FileSize;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import org.apache.logging.log4j.core.config.plugins.validation.constraints.Required;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写mmap文件的appender：事件编码到线程私有的buffer后，无锁地拷贝进文件的当前region，不经过系统调用，
+ * 也不做每条日志的flush，详见{@link MappedRingFileManager}。
+ * <pre>
+ * &lt;MappedRingFile name="Filelog" fileName="${FILE_PATH}/test.log" append="true"
+ *                 regionSize="8MB" maxFileSize="64MB" maxFiles="15" forceInterval="1000"&gt;
+ *   &lt;PatternLayout pattern="${LOG_PATTERN}"/&gt;
+ * &lt;/MappedRingFile&gt;
+ * </pre>
+ * 也可以作为{@link FanOutAppender}的目标，这时它自己的layout不再使用。
+ */
+@Plugin(name = MappedRingFileAppender.PLUGIN_NAME, category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE, printObject = true)
+public final class MappedRingFileAppender extends AbstractAppender {
+
+  public static final String PLUGIN_NAME = "MappedRingFile";
+
+  private final MappedRingFileManager manager;
+  private final ThreadLocal<EncodedEvent> encodedEvent = ThreadLocal.withInitial(EncodedEvent::new);
+
+  private MappedRingFileAppender(String name, Filter filter, Layout<? extends Serializable> layout, boolean ignoreExceptions,
+                                 Property[] properties, MappedRingFileManager manager) {
+    super(name, filter, layout, ignoreExceptions, properties);
+    this.manager = manager;
+  }
+
+  @PluginBuilderFactory
+  public static <B extends Builder<B>> B newBuilder() {
+    return new Builder<B>().asBuilder();
+  }
+
+  public MappedRingFileManager getManager() {
+    return manager;
+  }
+
+  @Override
+  public void append(LogEvent event) {
+    EncodedEvent _encodedEvent = encodedEvent.get();
+    do {
+      // 写之前换了新文件时重新格式化，例如DedupThrowablePatternConverter在新文件里输出完整的堆栈
+      _encodedEvent.clear();
+      getLayout().encode(event, _encodedEvent);
+    } while (!write(event, _encodedEvent.array(), _encodedEvent.length()));
+    _encodedEvent.trim();
+  }
+
+  /**
+   * 写编码好的事件，{@link FanOutAppender}直接调用
+   *
+   * @return false表示写之前换了新文件，事件没有写，要重新格式化之后再写，见{@link MappedRingFileManager#write(byte[], int, int)}
+   */
+  boolean write(LogEvent event, byte[] bytes, int length) {
+    if (length > manager.getRegionSize()) {
+      error(String.format("MappedRingFile %s: event of %s bytes is longer than regionSize %s, %s bytes dropped.",
+              getName(), length, manager.getRegionSize(), length), event, null);
+      return true;
+    }
+    try {
+      return manager.write(bytes, 0, length);
+    } catch (AppenderLoggingException e) {
+      error(String.format("MappedRingFile %s: unable to write to %s.", getName(), manager.getFileName()), event, e);
+      if (!ignoreExceptions()) {
+        throw e;
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public boolean stop(long timeout, TimeUnit timeUnit) {
+    setStopping();
+    boolean stopped = super.stop(timeout, timeUnit, false);
+    stopped &= manager.stop(timeout, timeUnit);
+    setStopped();
+    return stopped;
+  }
+
+  public static class Builder<B extends Builder<B>> extends AbstractAppender.Builder<B>
+          implements org.apache.logging.log4j.core.util.Builder<MappedRingFileAppender> {
+
+    @PluginBuilderAttribute
+    @Required(message = "No fileName provided for MappedRingFile")
+    private String fileName;
+
+    /**
+     * false时启动时清空已有的文件，和File的append一样
+     */
+    @PluginBuilderAttribute
+    private boolean append = true;
+
+    /**
+     * 每次mmap的大小，单条事件不能超过它，超过的事件不写，输出一条status error
+     */
+    @PluginBuilderAttribute
+    private String regionSize = "8MB";
+
+    @PluginBuilderAttribute
+    private String maxFileSize = "64MB";
+
+    /**
+     * 保留的历史文件数，0表示不保留
+     */
+    @PluginBuilderAttribute
+    private int maxFiles = 15;
+
+    /**
+     * 定时force的间隔（毫秒），0表示完全交给操作系统写回
+     */
+    @PluginBuilderAttribute
+    private long forceInterval = 1000;
+
+    public B setFileName(String fileName) {
+      this.fileName = fileName;
+      return asBuilder();
+    }
+
+    public B setAppend(boolean append) {
+      this.append = append;
+      return asBuilder();
+    }
+
+    public B setRegionSize(String regionSize) {
+      this.regionSize = regionSize;
+      return asBuilder();
+    }
+
+    public B setMaxFileSize(String maxFileSize) {
+      this.maxFileSize = maxFileSize;
+      return asBuilder();
+    }
+
+    public B setMaxFiles(int maxFiles) {
+      this.maxFiles = maxFiles;
+      return asBuilder();
+    }
+
+    public B setForceInterval(long forceInterval) {
+      this.forceInterval = forceInterval;
+      return asBuilder();
+    }
+
+    @Override
+    public MappedRingFileAppender build() {
+      long _regionSize = FileSize.parse(regionSize, 8L * 1024 * 1024);
+      if (_regionSize < 64 * 1024 || _regionSize > Integer.MAX_VALUE) {
+        LOGGER.error("MappedRingFile {}: regionSize {} must be between 64KB and 2GB.", getName(), regionSize);
+        return null;
+      }
+      MappedRingFileManager manager = MappedRingFileManager.getManager(fileName, append, (int) _regionSize,
+              FileSize.parse(maxFileSize, 64L * 1024 * 1024), Math.max(0, maxFiles), forceInterval);
+      if (manager == null) {
+        return null;
+      }
+      return new MappedRingFileAppender(getName(), getFilter(), getOrCreateLayout(), isIgnoreExceptions(),
+              getPropertyArray(), manager);
+    }
+  }
+
+}
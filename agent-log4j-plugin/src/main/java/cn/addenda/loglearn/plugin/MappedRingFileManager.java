@@ -0,0 +1,419 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractManager;
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.apache.logging.log4j.core.appender.ManagerFactory;
+import org.apache.logging.log4j.core.util.Log4jThreadFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link MappedRingFileAppender}的文件管理：把文件按regionSize一段一段地mmap进来，写日志就是往当前region里拷贝字节。
+ * <p>
+ * 写入不加锁：每个线程先用{@link AtomicInteger#getAndAdd(int)}在当前region里占一段位置，再把字节拷贝进去。
+ * 占位跨过region末尾（或正好从region末尾开始）的那个线程负责滚动，这样的线程只有一个：
+ * <ul>
+ *   <li>文件还没写满时，把前半段写进当前region，mmap文件的下一段作为新region，后半段写在新region的开头，
+ *   所以文件内容是连续的；</li>
+ *   <li>文件写满（达到maxFileSize）时，等当前region里已经占位的线程都写完，force并把文件截断到实际长度，
+ *   文件依次改名为fileName.1、fileName.2...（最多保留maxFiles个），再新建文件。</li>
+ * </ul>
+ * 其他占位落在region之外的线程等滚动完成后在新region里重新占位，等的时候先yield几次，之后park，间隔逐渐加大到1毫秒。换了新文件时，没写进旧文件的事件都不写，
+ * {@link #write(byte[], int, int)}返回false，由appender重新格式化之后再写到新文件里。
+ * <p>
+ * 单条事件不能超过regionSize，超过的事件不写。
+ * <p>
+ * 不做每条日志的flush：脏页由操作系统写回，另外每隔forceInterval毫秒调用一次{@link MappedByteBuffer#force()}，
+ * forceInterval为0时完全交给操作系统。进程崩溃时文件末尾可能留下一段0字节，下次启动追加前会去掉。
+ * <p>
+ * 和log4j自己的文件manager一样按文件名共享，重新加载配置时新旧appender用的是同一个manager，不会同时mmap同一个文件。
+ */
+public final class MappedRingFileManager extends AbstractManager {
+
+  private static final Factory FACTORY = new Factory();
+  /**
+   * 等待时先yield的次数，之后park
+   */
+  private static final int SPIN_ROUNDS = 16;
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final String fileName;
+  private final int regionSize;
+  private final long maxFileSize;
+  private final int maxFiles;
+  private final ScheduledExecutorService forceExecutor;
+
+  private FileChannel channel;
+  private volatile Region region;
+  /**
+   * 滚动过、还没有force过的region，只在持有this的锁时访问
+   */
+  private final List<Region> rolledRegions = new ArrayList<>();
+  /**
+   * 换了新文件之后调用，见{@link #addRollListener(Runnable)}
+   */
+  private final List<Runnable> rollListeners = new CopyOnWriteArrayList<>();
+
+  private MappedRingFileManager(LoggerContext loggerContext, String fileName, boolean append, int regionSize,
+                                long maxFileSize, int maxFiles, long forceInterval) throws IOException {
+    super(loggerContext, fileName);
+    this.fileName = fileName;
+    this.regionSize = regionSize;
+    // 文件大小取regionSize的整数倍，最后一个region正好写到文件末尾
+    this.maxFileSize = Math.max(1, maxFileSize / regionSize) * regionSize;
+    this.maxFiles = maxFiles;
+    if (!append) {
+      Files.deleteIfExists(new File(fileName).toPath());
+    }
+    openFile();
+    if (forceInterval > 0) {
+      forceExecutor = Executors.newSingleThreadScheduledExecutor(
+              Log4jThreadFactory.createDaemonThreadFactory("MappedRingFile-" + new File(fileName).getName()));
+      forceExecutor.scheduleWithFixedDelay(this::force, forceInterval, forceInterval, TimeUnit.MILLISECONDS);
+    } else {
+      forceExecutor = null;
+    }
+  }
+
+  /**
+   * @param append false时清空已有的文件，只在创建manager时生效，重新加载配置时共享的manager不会清空
+   */
+  public static MappedRingFileManager getManager(String fileName, boolean append, int regionSize, long maxFileSize,
+                                                 int maxFiles, long forceInterval) {
+    return getManager(fileName, FACTORY, new FactoryData(append, regionSize, maxFileSize, maxFiles, forceInterval));
+  }
+
+  /**
+   * 文件写满、换了新文件之后在滚动的线程里调用listener，例如{@link DedupThrowablePatternConverter}重新输出完整的堆栈
+   */
+  public void addRollListener(Runnable listener) {
+    rollListeners.add(listener);
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public int getRegionSize() {
+    return regionSize;
+  }
+
+  public void removeRollListener(Runnable listener) {
+    rollListeners.remove(listener);
+  }
+
+  /**
+   * 写一条编码好的事件，不能超过regionSize
+   *
+   * @return false表示写之前换了新文件（rollListener已经调用过），事件没有写。事件是换文件之前格式化的，
+   * 调用方要重新格式化之后再写，例如{@link DedupThrowablePatternConverter}在新文件里输出完整的堆栈
+   */
+  public boolean write(byte[] bytes, int offset, int length) {
+    if (length > regionSize) {
+      throw new AppenderLoggingException(String.format("MappedRingFile %s: event of %s bytes is longer than regionSize %s, %s bytes dropped.",
+              fileName, length, regionSize, length));
+    }
+    int _length = length;
+    while (true) {
+      Region _region = region;
+      if (_region == null) {
+        throw new AppenderLoggingException(String.format("MappedRingFile %s is closed.", fileName));
+      }
+      int start = _region.position.getAndAdd(_length);
+      if (start + _length <= regionSize) {
+        _region.put(start, bytes, offset, _length);
+        _region.committed.addAndGet(_length);
+        return true;
+      }
+      // 上一条事件正好写到region末尾时，从末尾开始占位的线程负责滚动，否则没有线程滚动
+      if (start <= regionSize) {
+        return roll(_region, start, bytes, offset, _length);
+      }
+      // 占位落在region之外，等跨界的线程滚动完
+      for (int round = 0; region == _region; round++) {
+        backoff(round);
+      }
+      Region next = region;
+      if (next != null && next.channel != _region.channel) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * @return 事件是否已经处理完，false表示换了新文件，事件没有写
+   */
+  private boolean roll(Region _region, int start, byte[] bytes, int offset, int length) {
+    int head = regionSize - start;
+    boolean sameFile = _region.fileOffset + regionSize < maxFileSize;
+    if (sameFile) {
+      // 前半段先写完，关闭时等的committed才能到regionSize
+      _region.put(start, bytes, offset, head);
+    } else {
+      // 文件写满了，这一段空着不写，截断文件时去掉
+      _region.end = start;
+    }
+    _region.committed.addAndGet(head);
+
+    synchronized (this) {
+      if (region != _region) {
+        // 已经关闭
+        return true;
+      }
+      try {
+        if (sameFile) {
+          Region next = map(_region.fileOffset + regionSize);
+          next.put(0, bytes, offset + head, length - head);
+          next.position.set(length - head);
+          next.committed.set(length - head);
+          if (forceExecutor != null) {
+            rolledRegions.add(_region);
+          }
+          region = next;
+          return true;
+        }
+        awaitCommitted(_region, regionSize, Long.MAX_VALUE);
+        closeFile(_region);
+        rotate();
+        openFile();
+        for (Runnable rollListener : rollListeners) {
+          rollListener.run();
+        }
+        return false;
+      } catch (IOException e) {
+        region = null;
+        throw new AppenderLoggingException(String.format("MappedRingFile %s roll fail.", fileName), e);
+      }
+    }
+  }
+
+  /**
+   * 文件已存在时接着写：截掉上次崩溃留下的末尾0字节，从实际长度开始mmap
+   */
+  private void openFile() throws IOException {
+    File file = new File(fileName);
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+      throw new IOException("unable to create directory " + parent);
+    }
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long length = trimmedLength(channel);
+    if (length >= maxFileSize) {
+      channel.truncate(length);
+      channel.close();
+      rotate();
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      // 改名失败时还是原来的文件，接着往后写
+      length = trimmedLength(channel);
+    }
+    // 不足一个region的部分留给第一个region：从文件开头数的region边界不变
+    long fileOffset = length / regionSize * regionSize;
+    Region first = map(fileOffset);
+    int position = (int) (length - fileOffset);
+    first.position.set(position);
+    first.committed.set(position);
+    region = first;
+  }
+
+  private Region map(long fileOffset) throws IOException {
+    return new Region(channel.map(FileChannel.MapMode.READ_WRITE, fileOffset, regionSize), channel, fileOffset);
+  }
+
+  /**
+   * 调用时持有this的锁，_region里已经占位的线程都写完了
+   */
+  private void closeFile(Region _region) throws IOException {
+    for (Region rolledRegion : rolledRegions) {
+      rolledRegion.buffer.force();
+    }
+    rolledRegions.clear();
+    _region.buffer.force();
+    int end = _region.end >= 0 ? _region.end : Math.min(_region.position.get(), regionSize);
+    channel.truncate(_region.fileOffset + end);
+    channel.close();
+  }
+
+  private void rotate() {
+    File file = new File(fileName);
+    try {
+      Files.deleteIfExists(new File(fileName + "." + maxFiles).toPath());
+      for (int i = maxFiles - 1; i >= 1; i--) {
+        File backup = new File(fileName + "." + i);
+        if (backup.exists()) {
+          Files.move(backup.toPath(), new File(fileName + "." + (i + 1)).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      if (maxFiles > 0) {
+        Files.move(file.toPath(), new File(fileName + ".1").toPath(), StandardCopyOption.REPLACE_EXISTING);
+      } else {
+        Files.deleteIfExists(file.toPath());
+      }
+    } catch (IOException e) {
+      // 改名失败时接着写原文件
+      logError("MappedRingFile " + fileName + " rotate fail", e);
+    }
+  }
+
+  private static long trimmedLength(FileChannel channel) throws IOException {
+    long length = channel.size();
+    ByteBuffer chunk = ByteBuffer.allocate(8 * 1024);
+    while (length > 0) {
+      int chunkLength = (int) Math.min(chunk.capacity(), length);
+      ((Buffer) chunk).clear();
+      ((Buffer) chunk).limit(chunkLength);
+      while (chunk.hasRemaining()) {
+        if (channel.read(chunk, length - chunkLength + chunk.position()) < 0) {
+          return length;
+        }
+      }
+      for (int i = chunkLength - 1; i >= 0; i--) {
+        if (chunk.get(i) != 0) {
+          return length - chunkLength + i + 1;
+        }
+      }
+      length -= chunkLength;
+    }
+    return 0;
+  }
+
+  private static boolean awaitCommitted(Region _region, int committed, long timeoutNanos) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    int round = 0;
+    while (_region.committed.get() < committed) {
+      if (timeoutNanos != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+        return false;
+      }
+      backoff(round++);
+    }
+    return true;
+  }
+
+  /**
+   * 先yield，之后park，间隔从1微秒开始加倍，最多{@link #MAX_PARK_NANOS}
+   */
+  private static void backoff(int round) {
+    if (round < SPIN_ROUNDS) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << Math.min(round - SPIN_ROUNDS, 10)));
+    }
+  }
+
+  private synchronized void force() {
+    Region _region = region;
+    if (_region == null) {
+      return;
+    }
+    for (Region rolledRegion : rolledRegions) {
+      rolledRegion.buffer.force();
+    }
+    rolledRegions.clear();
+    _region.buffer.force();
+  }
+
+  @Override
+  protected boolean releaseSub(long timeout, TimeUnit timeUnit) {
+    if (forceExecutor != null) {
+      forceExecutor.shutdown();
+    }
+    synchronized (this) {
+      Region _region = region;
+      if (_region == null) {
+        return true;
+      }
+      region = null;
+      int reserved = Math.min(_region.position.get(), regionSize);
+      long timeoutNanos = timeout > 0 ? timeUnit.toNanos(timeout) : TimeUnit.SECONDS.toNanos(1);
+      if (!awaitCommitted(_region, reserved, timeoutNanos)) {
+        logWarn("MappedRingFile " + fileName + " closed before all pending events were written", null);
+      }
+      try {
+        closeFile(_region);
+        return true;
+      } catch (IOException e) {
+        logError("MappedRingFile " + fileName + " close fail", e);
+        return false;
+      }
+    }
+  }
+
+  private static final class Region {
+    private final MappedByteBuffer buffer;
+    /**
+     * region所在的文件，换了新文件之后是另一个channel
+     */
+    private final FileChannel channel;
+    private final long fileOffset;
+    /**
+     * 已经占位的字节数，可能超过regionSize
+     */
+    private final AtomicInteger position = new AtomicInteger();
+    /**
+     * 已经写完的字节数
+     */
+    private final AtomicInteger committed = new AtomicInteger();
+    /**
+     * 文件写满时region的实际结束位置，-1表示未结束
+     */
+    private volatile int end = -1;
+
+    Region(MappedByteBuffer buffer, FileChannel channel, long fileOffset) {
+      this.buffer = buffer;
+      this.channel = channel;
+      this.fileOffset = fileOffset;
+    }
+
+    void put(int start, byte[] bytes, int offset, int length) {
+      ByteBuffer duplicate = buffer.duplicate();
+      ((Buffer) duplicate).position(start);
+      duplicate.put(bytes, offset, length);
+    }
+  }
+
+  private static final class FactoryData {
+    private final boolean append;
+    private final int regionSize;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final long forceInterval;
+
+    FactoryData(boolean append, int regionSize, long maxFileSize, int maxFiles, long forceInterval) {
+      this.append = append;
+      this.regionSize = regionSize;
+      this.maxFileSize = maxFileSize;
+      this.maxFiles = maxFiles;
+      this.forceInterval = forceInterval;
+    }
+  }
+
+  private static final class Factory implements ManagerFactory<MappedRingFileManager, FactoryData> {
+    @Override
+    public MappedRingFileManager createManager(String name, FactoryData data) {
+      try {
+        return new MappedRingFileManager(null, name, data.append, data.regionSize, data.maxFileSize, data.maxFiles,
+                data.forceInterval);
+      } catch (IOException e) {
+        LOGGER.error("MappedRingFile {} open fail", name, e);
+        return null;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,115 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link RateLimitFilter}里的一条规则：名称是logger或者以logger.开头的Logger，级别为level（不配置时为所有级别）的事件，
+ * 每个Logger的每个级别一个令牌桶，每秒补充rate个令牌，最多攒burst个。
+ * 令牌用完之后，sampleEvery大于0时每sampleEvery个被限制的事件放行一个，否则全部丢弃。
+ * <pre>
+ * &lt;Limit logger="cn.addenda.loglearn" level="warn" rate="10" burst="100" sampleEvery="1000"/&gt;
+ * </pre>
+ */
+@Plugin(name = "Limit", category = Core.CATEGORY_NAME, elementType = Node.CATEGORY, printObject = true)
+public final class RateLimit {
+
+  private final String logger;
+  private final Level level;
+  private final double rate;
+  private final long burst;
+  private final long sampleEvery;
+  /**
+   * 产生一个令牌的时间
+   */
+  private final long intervalNanos;
+
+  private RateLimit(String logger, Level level, double rate, long burst, long sampleEvery) {
+    this.logger = logger;
+    this.level = level;
+    this.rate = rate;
+    this.burst = burst;
+    this.sampleEvery = sampleEvery;
+    this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+  }
+
+  @PluginFactory
+  public static RateLimit createLimit(@PluginAttribute("logger") String logger,
+                                      @PluginAttribute("level") Level level,
+                                      @PluginAttribute(value = "rate", defaultDouble = 10) double rate,
+                                      @PluginAttribute(value = "burst", defaultLong = 0) long burst,
+                                      @PluginAttribute(value = "sampleEvery", defaultLong = 0) long sampleEvery) {
+    if (rate <= 0) {
+      throw new IllegalArgumentException(String.format("Limit %s: rate must be positive.", logger));
+    }
+    // 没有配置burst时允许攒1秒的令牌
+    long _burst = burst > 0 ? burst : Math.max(1, (long) Math.ceil(rate));
+    // 没有配置logger时log4j传进来的是null，表示所有Logger
+    return new RateLimit(logger == null ? "" : logger, level, rate, _burst, Math.max(0, sampleEvery));
+  }
+
+  String getLogger() {
+    return logger;
+  }
+
+  Level getLevel() {
+    return level;
+  }
+
+  long getSampleEvery() {
+    return sampleEvery;
+  }
+
+  boolean matches(String loggerName) {
+    return logger.isEmpty() || loggerName.equals(logger)
+            || loggerName.startsWith(logger) && loggerName.charAt(logger.length()) == '.';
+  }
+
+  boolean matches(Level eventLevel) {
+    return level == null || level.getStandardLevel() == eventLevel.getStandardLevel();
+  }
+
+  /**
+   * 桶满时的状态，新建令牌桶时用它初始化
+   */
+  long full(long now) {
+    return now - burst * intervalNanos;
+  }
+
+  /**
+   * GCRA：tat是已经发出的令牌理论上补充完的时间，桶满时是now - burst * interval，每取一个令牌加一个interval，
+   * 超过now就没有令牌了。一次CAS更新，不加锁
+   *
+   * @param tats  令牌桶的状态
+   * @param index tats里的下标
+   * @return 有没有令牌
+   */
+  boolean acquire(AtomicLongArray tats, int index, long now) {
+    long full = full(now);
+    while (true) {
+      long tat = tats.get(index);
+      // nanoTime可能是负数，只比较差值
+      long _tat = (tat - full > 0 ? tat : full) + intervalNanos;
+      if (_tat - now > 0) {
+        return false;
+      }
+      if (tats.compareAndSet(index, tat, _tat)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Limit[logger=%s, level=%s, rate=%s, burst=%s, sampleEvery=%s]",
+            logger, level, rate, burst, sampleEvery);
+  }
+
+}
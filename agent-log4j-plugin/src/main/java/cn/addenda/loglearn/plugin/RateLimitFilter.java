@@ -0,0 +1,423 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.spi.StandardLevel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 日志风暴时的限流：按{@link RateLimit}规则，每个Logger的每个级别一个令牌桶，超过速率的事件被丢弃（或者按sampleEvery采样放行）。
+ * <p>
+ * 要配置成context级别的filter（configuration下直接放RateLimitFilter），这样它在Logger.isEnabled里、创建事件和格式化消息之前执行，
+ * 被丢弃的事件不会格式化，也不会进入FanOut和后面的appender。放在Logger或appender上也能用，但那时消息已经格式化了。
+ * <p>
+ * 令牌桶的状态是一个long，一次CAS更新；每个Logger的令牌桶放在ConcurrentHashMap里，查找不加锁。
+ * 超过maxLoggers个Logger之后，新的Logger共用所匹配规则的令牌桶。isXxxEnabled()这类不带消息的判断不消耗令牌。
+ * <p>
+ * 被丢弃的事件按Logger和级别计数，每reportInterval秒用WARN级别的cn.addenda.loglearn.plugin.RateLimitFilter
+ * 输出一次（这个Logger本身不限流，{@link RepeatFilter}的汇总也不限流）；由配置的调度线程定时输出，事件到来时也会检查是否到了时间，剩下的计数在配置停止时输出。
+ * <pre>
+ * &lt;configuration&gt;
+ *   &lt;RateLimitFilter reportInterval="60"&gt;
+ *     &lt;Limit level="warn" rate="10" burst="100"/&gt;
+ *     &lt;Limit logger="cn.addenda.loglearn" level="info" rate="100" sampleEvery="1000"/&gt;
+ *   &lt;/RateLimitFilter&gt;
+ *   ...
+ * </pre>
+ * 没有匹配任何规则的事件返回onMatch（默认NEUTRAL），被限制的返回onMismatch（默认DENY）。
+ */
+@Plugin(name = "RateLimitFilter", category = Core.CATEGORY_NAME, elementType = Filter.ELEMENT_TYPE, printObject = true)
+public final class RateLimitFilter extends AbstractFilter {
+
+  private static final String REPORT_LOGGER_NAME = RateLimitFilter.class.getName();
+  private static final int LEVEL_COUNT = StandardLevel.values().length;
+
+  private final Configuration configuration;
+  private final RateLimit[] limits;
+  private final int maxLoggers;
+  private final long reportIntervalNanos;
+  /**
+   * logger名称 -> 令牌桶
+   */
+  private final ConcurrentHashMap<String, Buckets> loggerBuckets = new ConcurrentHashMap<>();
+  /**
+   * 超过maxLoggers之后，每条规则共用的令牌桶
+   */
+  private final Map<RateLimit, Buckets> sharedBuckets = new ConcurrentHashMap<>();
+  private final AtomicLong nextReportNanos;
+  private final LongAdder suppressedCount = new LongAdder();
+  private volatile ScheduledFuture<?> reportFuture;
+
+  private RateLimitFilter(Result onMatch, Result onMismatch, Configuration configuration, RateLimit[] limits,
+                          int maxLoggers, long reportIntervalSeconds) {
+    super(onMatch, onMismatch);
+    this.configuration = configuration;
+    this.limits = limits;
+    this.maxLoggers = maxLoggers;
+    this.reportIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(1, reportIntervalSeconds));
+    this.nextReportNanos = new AtomicLong(System.nanoTime() + reportIntervalNanos);
+    for (RateLimit limit : limits) {
+      RateLimit[] levelLimits = new RateLimit[LEVEL_COUNT];
+      for (StandardLevel standardLevel : StandardLevel.values()) {
+        levelLimits[standardLevel.ordinal()] = limit.matches(Level.getLevel(standardLevel.name())) ? limit : null;
+      }
+      sharedBuckets.put(limit, new Buckets(limit.getLogger() + ".*", levelLimits, System.nanoTime()));
+    }
+    // 调度线程在配置启动时按登记的数量创建，这里是构建配置的时候
+    configuration.getScheduler().incrementScheduledItems();
+  }
+
+  @PluginBuilderFactory
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * 被丢弃的事件总数
+   */
+  public long getSuppressedCount() {
+    return suppressedCount.sum();
+  }
+
+  private Result filter(Logger logger, Level level, Marker marker) {
+    String loggerName = logger.getName();
+    if (marker == RepeatFilter.REPEAT_MARKER || REPORT_LOGGER_NAME.equals(loggerName)) {
+      return onMatch;
+    }
+    return filter(loggerName, level);
+  }
+
+  private Result filter(String loggerName, Level level) {
+    long now = System.nanoTime();
+    if (now - nextReportNanos.get() >= 0) {
+      report(now);
+    }
+    int index = level.getStandardLevel().ordinal();
+    Buckets buckets = loggerBuckets.get(loggerName);
+    if (buckets == null) {
+      buckets = createBuckets(loggerName);
+    }
+    if (buckets == null) {
+      RateLimit limit = match(loggerName, level);
+      if (limit == null) {
+        return onMatch;
+      }
+      buckets = sharedBuckets.get(limit);
+    }
+    RateLimit limit = buckets.limits[index];
+    if (limit == null || limit.acquire(buckets.tats, index, now)) {
+      return onMatch;
+    }
+    long sampleEvery = limit.getSampleEvery();
+    if (sampleEvery > 0 && buckets.limited.incrementAndGet(index) % sampleEvery == 0) {
+      return onMatch;
+    }
+    buckets.suppressed.incrementAndGet(index);
+    suppressedCount.increment();
+    return onMismatch;
+  }
+
+  /**
+   * @return 超过maxLoggers时返回null，使用规则共用的令牌桶
+   */
+  private Buckets createBuckets(String loggerName) {
+    if (loggerBuckets.size() >= maxLoggers) {
+      return null;
+    }
+    RateLimit[] levelLimits = new RateLimit[LEVEL_COUNT];
+    for (StandardLevel standardLevel : StandardLevel.values()) {
+      levelLimits[standardLevel.ordinal()] = match(loggerName, Level.getLevel(standardLevel.name()));
+    }
+    Buckets buckets = new Buckets(loggerName, levelLimits, System.nanoTime());
+    Buckets existing = loggerBuckets.putIfAbsent(loggerName, buckets);
+    return existing != null ? existing : buckets;
+  }
+
+  /**
+   * logger前缀最长的规则优先；前缀一样长时，指定了级别的优先
+   */
+  private RateLimit match(String loggerName, Level level) {
+    RateLimit matched = null;
+    for (RateLimit limit : limits) {
+      if (!limit.matches(loggerName) || !limit.matches(level)) {
+        continue;
+      }
+      if (matched == null || limit.getLogger().length() > matched.getLogger().length()
+              || limit.getLogger().length() == matched.getLogger().length() && matched.getLevel() == null) {
+        matched = limit;
+      }
+    }
+    return matched;
+  }
+
+  @Override
+  public void start() {
+    long reportIntervalMillis = TimeUnit.NANOSECONDS.toMillis(reportIntervalNanos);
+    reportFuture = configuration.getScheduler().scheduleWithFixedDelay(() -> report(System.nanoTime()),
+            reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+    super.start();
+  }
+
+  /**
+   * 同一时间只有一个线程输出：CAS更新下一次输出的时间成功的那个，调度线程和事件到来时的检查都走这里
+   */
+  private void report(long now) {
+    long next = nextReportNanos.get();
+    if (now - next < 0 || !nextReportNanos.compareAndSet(next, now + reportIntervalNanos)) {
+      return;
+    }
+    LoggerContext loggerContext = configuration.getLoggerContext();
+    if (loggerContext != null) {
+      doReport(loggerContext.getLogger(REPORT_LOGGER_NAME));
+    }
+  }
+
+  private synchronized void doReport(org.apache.logging.log4j.Logger reportLogger) {
+    for (Buckets buckets : loggerBuckets.values()) {
+      buckets.report(reportLogger);
+    }
+    for (Buckets buckets : sharedBuckets.values()) {
+      buckets.report(reportLogger);
+    }
+  }
+
+  /**
+   * 重新加载配置时，旧配置停止之前新配置已经生效，剩下的计数照常输出；
+   * LoggerContext关闭时Logger已经不再输出，剩下的计数交给StatusLogger
+   */
+  @Override
+  public boolean stop(long timeout, TimeUnit timeUnit) {
+    ScheduledFuture<?> _reportFuture = reportFuture;
+    if (_reportFuture != null) {
+      _reportFuture.cancel(false);
+    }
+    LoggerContext loggerContext = configuration.getLoggerContext();
+    if (loggerContext == null || loggerContext.isStopping() || loggerContext.isStopped()) {
+      doReport(LOGGER);
+    } else {
+      doReport(loggerContext.getLogger(REPORT_LOGGER_NAME));
+    }
+    return super.stop(timeout, timeUnit);
+  }
+
+  @Override
+  public Result filter(LogEvent event) {
+    String loggerName = event.getLoggerName();
+    if (loggerName == null || event.getMarker() == RepeatFilter.REPEAT_MARKER || REPORT_LOGGER_NAME.equals(loggerName)) {
+      return onMatch;
+    }
+    return filter(loggerName, event.getLevel());
+  }
+
+  /**
+   * isXxxEnabled()：只判断级别，不消耗令牌
+   */
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, Object msg, Throwable t) {
+    if (msg == null && t == null) {
+      return onMatch;
+    }
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, Message msg, Throwable t) {
+    return filter(logger, level, marker);
+  }
+
+  /**
+   * slf4j的isXxxEnabled()走这里，msg和params都是null，不消耗令牌
+   */
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object... params) {
+    if (msg == null && params == null) {
+      return onMatch;
+    }
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5, Object p6) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5, Object p6, Object p7) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5, Object p6, Object p7, Object p8, Object p9) {
+    return filter(logger, level, marker);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("RateLimitFilter[");
+    for (int i = 0; i < limits.length; i++) {
+      sb.append(i == 0 ? "" : ", ").append(limits[i]);
+    }
+    return sb.append(']').toString();
+  }
+
+  /**
+   * 一个Logger每个级别（按StandardLevel的顺序）的令牌桶和被丢弃的计数
+   */
+  private static final class Buckets {
+    private final String loggerName;
+    private final RateLimit[] limits;
+    private final AtomicLongArray tats;
+    /**
+     * 没有令牌的事件数，包括采样放行的
+     */
+    private final AtomicLongArray limited;
+    /**
+     * 丢弃的事件数
+     */
+    private final AtomicLongArray suppressed;
+    /**
+     * 上一次输出时suppressed的值
+     */
+    private final long[] reported;
+
+    Buckets(String loggerName, RateLimit[] limits, long now) {
+      this.loggerName = loggerName;
+      this.limits = limits;
+      this.tats = new AtomicLongArray(limits.length);
+      this.limited = new AtomicLongArray(limits.length);
+      this.suppressed = new AtomicLongArray(limits.length);
+      this.reported = new long[limits.length];
+      for (int i = 0; i < limits.length; i++) {
+        if (limits[i] != null) {
+          tats.set(i, limits[i].full(now));
+        }
+      }
+    }
+
+    /**
+     * 在RateLimitFilter.doReport里调用，已经同步
+     */
+    void report(org.apache.logging.log4j.Logger reportLogger) {
+      for (int i = 0; i < limits.length; i++) {
+        long _suppressed = suppressed.get(i);
+        long count = _suppressed - reported[i];
+        if (count <= 0) {
+          continue;
+        }
+        reported[i] = _suppressed;
+        if (reportLogger != null) {
+          reportLogger.warn("{}: suppressed {} {} events of {}.", limits[i], count, StandardLevel.values()[i], loggerName);
+        }
+      }
+    }
+  }
+
+  public static class Builder extends AbstractFilterBuilder<Builder>
+          implements org.apache.logging.log4j.core.util.Builder<RateLimitFilter> {
+
+    @PluginConfiguration
+    private Configuration configuration;
+
+    @PluginElement("Limit")
+    private RateLimit[] limits;
+
+    @PluginBuilderAttribute
+    private int maxLoggers = 1024;
+
+    /**
+     * 秒
+     */
+    @PluginBuilderAttribute
+    private long reportInterval = 60;
+
+    public Builder setConfiguration(Configuration configuration) {
+      this.configuration = configuration;
+      return this;
+    }
+
+    public Builder setLimits(RateLimit... limits) {
+      this.limits = limits;
+      return this;
+    }
+
+    public Builder setMaxLoggers(int maxLoggers) {
+      this.maxLoggers = maxLoggers;
+      return this;
+    }
+
+    public Builder setReportInterval(long reportInterval) {
+      this.reportInterval = reportInterval;
+      return this;
+    }
+
+    @Override
+    public RateLimitFilter build() {
+      return new RateLimitFilter(getOnMatch(), getOnMismatch(), configuration,
+              limits == null ? new RateLimit[0] : limits, maxLoggers, reportInterval);
+    }
+  }
+
+}
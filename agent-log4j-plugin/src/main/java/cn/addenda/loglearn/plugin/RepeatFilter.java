@@ -0,0 +1,379 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.message.Message;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 重复日志合并：Logger、级别、消息模板（参数不算）、异常类型都相同的事件，window秒内只输出第一个，
+ * 后面的只计数，窗口结束后在同一个Logger上按同样的级别输出一条"repeated N times"。
+ * <p>
+ * 和{@link RateLimitFilter}一样要配置成context级别的filter，在创建事件、格式化消息之前执行，
+ * 被合并的事件不格式化也不写盘，格式化和IO的开销只和不同事件的数量有关。和RateLimitFilter一起用时放在前面：
+ * <pre>
+ * &lt;configuration&gt;
+ *   &lt;Filters&gt;
+ *     &lt;RepeatFilter level="warn" window="10" capacity="1024"/&gt;
+ *     &lt;RateLimitFilter&gt;...&lt;/RateLimitFilter&gt;
+ *   &lt;/Filters&gt;
+ *   ...
+ * </pre>
+ * 只合并level及以上级别的事件，默认warn，info这类业务日志参数不同时通常含义也不同。
+ * <p>
+ * 指纹表是capacity个槽的数组，按指纹的hash放，槽里的记录不可变，替换用CAS，不加锁；
+ * 只有窗口里第一次出现的事件创建记录，重复的事件只加一次计数。hash冲突时新的指纹替换旧的，旧的先输出它的计数，
+ * 所以表的大小是固定的。配置的调度线程（ConfigurationScheduler）每window秒清理一次表，输出窗口已经结束的计数，
+ * 风暴停止之后也能按时输出，不依赖后面的事件。LoggerContext关闭时剩下的计数交给StatusLogger。
+ * <p>
+ * 汇总带着{@link #REPEAT_MARKER}，这个filter和{@link RateLimitFilter}都不处理带这个Marker的事件，汇总不会被限流丢掉。
+ * 没有消息的判断（isXxxEnabled()）、消息不是String或Message的事件返回onMatch（默认NEUTRAL），被合并的返回onMismatch（默认DENY）。
+ */
+@Plugin(name = "RepeatFilter", category = Core.CATEGORY_NAME, elementType = Filter.ELEMENT_TYPE, printObject = true)
+public final class RepeatFilter extends AbstractFilter {
+
+  public static final Marker REPEAT_MARKER = MarkerManager.getMarker("REPEAT");
+
+  private final Configuration configuration;
+  private final Level level;
+  private final long windowNanos;
+  private final AtomicReferenceArray<Fingerprint> table;
+  private final int mask;
+  private volatile ScheduledFuture<?> sweepFuture;
+  private final LongAdder repeatedCount = new LongAdder();
+
+  private RepeatFilter(Result onMatch, Result onMismatch, Configuration configuration, Level level,
+                       long windowSeconds, int capacity) {
+    super(onMatch, onMismatch);
+    this.configuration = configuration;
+    this.level = level;
+    this.windowNanos = TimeUnit.SECONDS.toNanos(Math.max(1, windowSeconds));
+    // 向上取到2的幂，下标用位与
+    int _capacity = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+    this.table = new AtomicReferenceArray<>(_capacity);
+    this.mask = _capacity - 1;
+    // 调度线程在配置启动时按登记的数量创建，这里是构建配置的时候
+    configuration.getScheduler().incrementScheduledItems();
+  }
+
+  @PluginBuilderFactory
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * 被合并的事件总数
+   */
+  public long getRepeatedCount() {
+    return repeatedCount.sum();
+  }
+
+  private Result filter(Logger logger, Level eventLevel, Marker marker, String template, Throwable t) {
+    if (template == null || marker == REPEAT_MARKER || !eventLevel.isMoreSpecificThan(level)) {
+      return onMatch;
+    }
+    long now = System.nanoTime();
+    String loggerName = logger.getName();
+    Class<?> throwableClass = t == null ? null : t.getClass();
+    int hash = hash(loggerName, eventLevel, template, throwableClass);
+    int index = hash & mask;
+    while (true) {
+      Fingerprint fingerprint = table.get(index);
+      if (fingerprint != null && now - fingerprint.start < windowNanos
+              && fingerprint.matches(hash, loggerName, eventLevel, template, throwableClass)) {
+        fingerprint.repeated.increment();
+        repeatedCount.increment();
+        return onMismatch;
+      }
+      // 第一次出现、窗口已经结束或者hash冲突：换成新的记录，旧记录的计数先输出
+      Fingerprint _fingerprint = new Fingerprint(hash, loggerName, eventLevel, template, throwableClass, now);
+      if (table.compareAndSet(index, fingerprint, _fingerprint)) {
+        if (fingerprint != null) {
+          summarize(fingerprint, now, null);
+        }
+        return onMatch;
+      }
+    }
+  }
+
+  private static int hash(String loggerName, Level level, String template, Class<?> throwableClass) {
+    int hash = loggerName.hashCode();
+    hash = hash * 31 + level.intLevel();
+    hash = hash * 31 + template.hashCode();
+    hash = hash * 31 + (throwableClass == null ? 0 : throwableClass.hashCode());
+    // 高位混到低位
+    return hash ^ (hash >>> 16);
+  }
+
+  @Override
+  public void start() {
+    long windowMillis = TimeUnit.NANOSECONDS.toMillis(windowNanos);
+    sweepFuture = configuration.getScheduler().scheduleWithFixedDelay(this::sweep, windowMillis, windowMillis,
+            TimeUnit.MILLISECONDS);
+    super.start();
+  }
+
+  /**
+   * 在调度线程里执行，输出窗口已经结束的计数
+   */
+  private void sweep() {
+    long now = System.nanoTime();
+    for (int i = 0; i < table.length(); i++) {
+      Fingerprint fingerprint = table.get(i);
+      if (fingerprint != null && now - fingerprint.start >= windowNanos && table.compareAndSet(i, fingerprint, null)) {
+        summarize(fingerprint, now, null);
+      }
+    }
+  }
+
+  /**
+   * @param statusLogger 不为null时输出到它，而不是原来的Logger
+   */
+  private void summarize(Fingerprint fingerprint, long now, org.apache.logging.log4j.Logger statusLogger) {
+    long repeated = fingerprint.repeated.sum();
+    if (repeated == 0) {
+      return;
+    }
+    String throwableClass = fingerprint.throwableClass == null ? "" : " [" + fingerprint.throwableClass.getName() + "]";
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(now - fingerprint.start);
+    if (statusLogger != null) {
+      statusLogger.warn("{} {}: previous message repeated {} times in {} ms: {}{}", fingerprint.level,
+              fingerprint.loggerName, repeated, elapsed, fingerprint.template, throwableClass);
+      return;
+    }
+    LoggerContext loggerContext = configuration.getLoggerContext();
+    if (loggerContext != null) {
+      loggerContext.getLogger(fingerprint.loggerName).log(fingerprint.level, REPEAT_MARKER,
+              "Previous message repeated {} times in {} ms: {}{}", repeated, elapsed, fingerprint.template, throwableClass);
+    }
+  }
+
+  /**
+   * 重新加载配置时，旧配置停止之前新配置已经生效，剩下的计数照常输出；
+   * LoggerContext关闭时Logger已经不再输出，剩下的计数交给StatusLogger
+   */
+  @Override
+  public boolean stop(long timeout, TimeUnit timeUnit) {
+    ScheduledFuture<?> _sweepFuture = sweepFuture;
+    if (_sweepFuture != null) {
+      _sweepFuture.cancel(false);
+    }
+    LoggerContext loggerContext = configuration.getLoggerContext();
+    boolean contextStopping = loggerContext == null || loggerContext.isStopping() || loggerContext.isStopped();
+    long now = System.nanoTime();
+    for (int i = 0; i < table.length(); i++) {
+      Fingerprint fingerprint = table.getAndSet(i, null);
+      if (fingerprint != null) {
+        summarize(fingerprint, now, contextStopping ? LOGGER : null);
+      }
+    }
+    return super.stop(timeout, timeUnit);
+  }
+
+  /**
+   * 配置在appender或者Logger上时走这里，消息已经创建了
+   */
+  @Override
+  public Result filter(LogEvent event) {
+    Message message = event.getMessage();
+    if (event.getLoggerName() == null || message == null) {
+      return onMatch;
+    }
+    LoggerContext loggerContext = configuration.getLoggerContext();
+    if (loggerContext == null) {
+      return onMatch;
+    }
+    return filter(loggerContext.getLogger(event.getLoggerName()), event.getLevel(), event.getMarker(),
+            message.getFormat(), event.getThrown());
+  }
+
+  /**
+   * isXxxEnabled()时msg是null；其他对象的toString不一定是模板，不合并
+   */
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, Object msg, Throwable t) {
+    if (!(msg instanceof String)) {
+      return onMatch;
+    }
+    return filter(logger, level, marker, (String) msg, t);
+  }
+
+  /**
+   * AgentLogger的事件走这里，getFormat()是模板
+   */
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, Message msg, Throwable t) {
+    if (msg == null) {
+      return onMatch;
+    }
+    return filter(logger, level, marker, msg.getFormat(), t != null ? t : msg.getThrowable());
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object... params) {
+    return filter(logger, level, marker, msg,
+            params == null || params.length == 0 ? null : throwable(params[params.length - 1]));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0) {
+    return filter(logger, level, marker, msg, throwable(p0));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1) {
+    return filter(logger, level, marker, msg, throwable(p1));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2) {
+    return filter(logger, level, marker, msg, throwable(p2));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3) {
+    return filter(logger, level, marker, msg, throwable(p3));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4) {
+    return filter(logger, level, marker, msg, throwable(p4));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5) {
+    return filter(logger, level, marker, msg, throwable(p5));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5, Object p6) {
+    return filter(logger, level, marker, msg, throwable(p6));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5, Object p6, Object p7) {
+    return filter(logger, level, marker, msg, throwable(p7));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+    return filter(logger, level, marker, msg, throwable(p8));
+  }
+
+  @Override
+  public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                       Object p3, Object p4, Object p5, Object p6, Object p7, Object p8, Object p9) {
+    return filter(logger, level, marker, msg, throwable(p9));
+  }
+
+  /**
+   * 和slf4j一样，最后一个参数是Throwable时当作异常
+   */
+  private static Throwable throwable(Object lastParam) {
+    return lastParam instanceof Throwable ? (Throwable) lastParam : null;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("RepeatFilter[level=%s, window=%ss, capacity=%s]",
+            level, TimeUnit.NANOSECONDS.toSeconds(windowNanos), table.length());
+  }
+
+  /**
+   * 指纹表里的一条记录，除了计数都不可变
+   */
+  private static final class Fingerprint {
+    private final int hash;
+    private final String loggerName;
+    private final Level level;
+    private final String template;
+    private final Class<?> throwableClass;
+    /**
+     * 窗口开始的时间，也就是输出的那个事件的时间
+     */
+    private final long start;
+    private final LongAdder repeated = new LongAdder();
+
+    Fingerprint(int hash, String loggerName, Level level, String template, Class<?> throwableClass, long start) {
+      this.hash = hash;
+      this.loggerName = loggerName;
+      this.level = level;
+      this.template = template;
+      this.throwableClass = throwableClass;
+      this.start = start;
+    }
+
+    boolean matches(int hash, String loggerName, Level level, String template, Class<?> throwableClass) {
+      return this.hash == hash && this.level == level && this.throwableClass == throwableClass
+              && this.loggerName.equals(loggerName) && this.template.equals(template);
+    }
+  }
+
+  public static class Builder extends AbstractFilterBuilder<Builder>
+          implements org.apache.logging.log4j.core.util.Builder<RepeatFilter> {
+
+    @PluginConfiguration
+    private Configuration configuration;
+
+    @PluginBuilderAttribute
+    private Level level = Level.WARN;
+
+    /**
+     * 秒
+     */
+    @PluginBuilderAttribute
+    private long window = 10;
+
+    @PluginBuilderAttribute
+    private int capacity = 1024;
+
+    public Builder setConfiguration(Configuration configuration) {
+      this.configuration = configuration;
+      return this;
+    }
+
+    public Builder setLevel(Level level) {
+      this.level = level;
+      return this;
+    }
+
+    public Builder setWindow(long window) {
+      this.window = window;
+      return this;
+    }
+
+    public Builder setCapacity(int capacity) {
+      this.capacity = capacity;
+      return this;
+    }
+
+    @Override
+    public RepeatFilter build() {
+      return new RepeatFilter(getOnMatch(), getOnMismatch(), configuration,
+              level == null ? Level.WARN : level, window, capacity);
+    }
+  }
+
+}
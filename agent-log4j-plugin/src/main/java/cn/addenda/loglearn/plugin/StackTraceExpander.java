@@ -0,0 +1,126 @@
+package cn.addenda.loglearn.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 把{@link DedupThrowablePatternConverter}输出的只有id的异常还原成完整的堆栈：
+ * java -cp agent-log4j-plugin-1.0-SNAPSHOT.jar cn.addenda.loglearn.plugin.StackTraceExpander &lt;日志文件&gt; [其他日志文件...]
+ * <p>
+ * 所有文件里的完整堆栈都收集起来，只还原第一个文件，结果写到标准输出；.gz结尾的文件（滚动归档）直接读。
+ * 还原出来的第一行是这一次的异常类型和消息，后面的栈帧和Caused by来自第一次输出的完整堆栈，cause的消息可能不一样。
+ */
+public final class StackTraceExpander {
+
+  private StackTraceExpander() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.out.println("usage: StackTraceExpander <log file> [other log files...]");
+      System.exit(1);
+    }
+    Map<String, List<String>> stackTraces = new HashMap<>();
+    for (String arg : args) {
+      collect(readLines(new File(arg)), stackTraces);
+    }
+    Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    int missing = expand(readLines(new File(args[0])), stackTraces, writer);
+    writer.flush();
+    if (missing > 0) {
+      System.err.println(String.format("%s stack ids not found, pass the previous log files too.", missing));
+    }
+  }
+
+  /**
+   * 完整的堆栈：[stack:id]开头的行，后面跟着栈帧行。第一次出现的为准
+   */
+  static void collect(List<String> lines, Map<String, List<String>> stackTraces) {
+    for (int i = 0; i < lines.size(); i++) {
+      String id = id(lines.get(i));
+      if (id == null || i + 1 >= lines.size() || !isFrame(lines.get(i + 1))) {
+        continue;
+      }
+      List<String> frames = new ArrayList<>();
+      while (i + 1 < lines.size() && isFrame(lines.get(i + 1))) {
+        frames.add(lines.get(++i));
+      }
+      stackTraces.putIfAbsent(id, frames);
+    }
+  }
+
+  /**
+   * @return 没有找到完整堆栈的异常行数
+   */
+  static int expand(List<String> lines, Map<String, List<String>> stackTraces, Writer writer) throws IOException {
+    int missing = 0;
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      writer.write(line);
+      writer.write('\n');
+      String id = id(line);
+      if (id == null || i + 1 < lines.size() && isFrame(lines.get(i + 1))) {
+        continue;
+      }
+      List<String> frames = stackTraces.get(id);
+      if (frames == null) {
+        missing++;
+        continue;
+      }
+      for (String frame : frames) {
+        writer.write(frame);
+        writer.write('\n');
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * 异常可能紧跟在消息后面（pattern里%dEx前面没有%n时），所以在整行里找
+   */
+  private static String id(String line) {
+    int start = line.indexOf(DedupThrowablePatternConverter.ID_PREFIX);
+    if (start < 0) {
+      return null;
+    }
+    int end = start + DedupThrowablePatternConverter.ID_PREFIX.length() + DedupThrowablePatternConverter.ID_LENGTH;
+    if (end >= line.length() || line.charAt(end) != ']') {
+      return null;
+    }
+    return line.substring(start + DedupThrowablePatternConverter.ID_PREFIX.length(), end);
+  }
+
+  /**
+   * printStackTrace的格式：栈帧、"... n more"、Suppressed以tab开头，cause以Caused by: 开头
+   */
+  private static boolean isFrame(String line) {
+    return line.startsWith("\t") || line.startsWith("Caused by: ");
+  }
+
+  private static List<String> readLines(File file) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (InputStream in = file.getName().endsWith(".gz")
+            ? new GZIPInputStream(new FileInputStream(file)) : new FileInputStream(file);
+         BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+}
@@ -0,0 +1,79 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FanOut把同一次格式化的结果写到按级别筛选的文件里，每个文件都要能单独还原
+ */
+public class DedupThrowablePatternConverterTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * 同样的堆栈先在INFO输出过，之后的ERROR仍然要在error.log里输出完整的堆栈
+   */
+  @Test
+  public void errorAfterInfoWithSameTraceIsComplete() throws IOException {
+    File dir = folder.getRoot();
+    System.setProperty("dedup.dir", dir.getAbsolutePath());
+    LoggerContext context = Configurator.initialize("dedup", getClass().getClassLoader(), "dedup-fanout.xml");
+    try {
+      Logger logger = context.getLogger("dedup");
+      for (Level level : new Level[]{Level.INFO, Level.INFO, Level.ERROR, Level.ERROR}) {
+        logger.log(level, "failure", newException());
+      }
+    } finally {
+      Configurator.shutdown(context);
+      System.clearProperty("dedup.dir");
+    }
+
+    List<String> info = Files.readAllLines(new File(dir, "info.log").toPath(), StandardCharsets.UTF_8);
+    List<String> error = Files.readAllLines(new File(dir, "error.log").toPath(), StandardCharsets.UTF_8);
+    // 每个级别第一次完整，第二次只有id
+    Assert.assertEquals(2, countFullTraces(info));
+    Assert.assertEquals(1, countFullTraces(error));
+    Assert.assertEquals(0, expandAlone(info));
+    Assert.assertEquals(0, expandAlone(error));
+  }
+
+  private static IllegalStateException newException() {
+    return new IllegalStateException("boom");
+  }
+
+  private static int countFullTraces(List<String> lines) {
+    int count = 0;
+    for (int i = 0; i + 1 < lines.size(); i++) {
+      if (lines.get(i).contains(DedupThrowablePatternConverter.ID_PREFIX) && lines.get(i + 1).startsWith("\t")) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return 只用这一个文件还原时找不到完整堆栈的行数
+   */
+  private static int expandAlone(List<String> lines) throws IOException {
+    Map<String, List<String>> stackTraces = new HashMap<>();
+    StackTraceExpander.collect(lines, stackTraces);
+    return StackTraceExpander.expand(lines, stackTraces, new StringWriter());
+  }
+
+}
@@ -0,0 +1,204 @@
+package cn.addenda.loglearn.plugin;
+
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link MappedRingFileManager}在region边界和换文件时的写入：region很小，让滚动频繁发生
+ */
+public class MappedRingFileManagerTest {
+
+  private static final int REGION_SIZE = 4096;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * 事件长度整除regionSize，每个region的最后一条正好写到末尾，下一条从末尾开始占位
+   */
+  @Test
+  public void exactRegionBoundary() throws IOException {
+    File file = new File(folder.getRoot(), "exact.log");
+    MappedRingFileManager manager = open(file, true, 1024 * 1024);
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertTrue(manager.write(record(0, i, 64), 0, 64));
+    }
+    manager.stop(1, TimeUnit.SECONDS);
+
+    Assert.assertEquals(64 * 1000, file.length());
+    List<String> lines = readAll(file, 0);
+    Assert.assertEquals(1000, lines.size());
+    for (int i = 0; i < lines.size(); i++) {
+      Assert.assertEquals(new String(record(0, i, 64), StandardCharsets.UTF_8).trim(), lines.get(i));
+    }
+  }
+
+  /**
+   * 多个线程同时写，跨region和换文件时每条事件都完整、不重复，同一个线程的事件保持顺序
+   */
+  @Test
+  public void concurrentWritesAcrossRegions() throws Exception {
+    File file = new File(folder.getRoot(), "concurrent.log");
+    long maxFileSize = 16L * REGION_SIZE;
+    MappedRingFileManager manager = open(file, true, maxFileSize);
+    int threads = 8;
+    int records = 5000;
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int thread = t;
+      Thread writer = new Thread(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < records; i++) {
+            // 长度在32到543之间变化，包括整除regionSize的长度
+            byte[] bytes = record(thread, i, 32 + (i * 31 + thread * 7) % 512);
+            while (!manager.write(bytes, 0, bytes.length)) {
+              // 换了新文件，和appender一样重新写
+            }
+          }
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      });
+      writer.start();
+      writers.add(writer);
+    }
+    start.countDown();
+    for (Thread writer : writers) {
+      writer.join(TimeUnit.MINUTES.toMillis(1));
+      Assert.assertFalse("writer did not finish", writer.isAlive());
+    }
+    manager.stop(1, TimeUnit.SECONDS);
+    Assert.assertNull(failure.get());
+
+    int[] next = new int[threads];
+    for (String line : readAll(file, 1000)) {
+      String[] parts = line.split("-");
+      int thread = Integer.parseInt(parts[0]);
+      int seq = Integer.parseInt(parts[1]);
+      Assert.assertEquals("line " + line, next[thread], seq);
+      Assert.assertEquals("line " + line, 32 + (seq * 31 + thread * 7) % 512 - 1, line.length());
+      next[thread]++;
+    }
+    for (int t = 0; t < threads; t++) {
+      Assert.assertEquals(records, next[t]);
+    }
+    for (File rolled : rolledFiles(file, 1000)) {
+      Assert.assertTrue(rolled + " is " + rolled.length() + " bytes", rolled.length() <= maxFileSize);
+    }
+  }
+
+  /**
+   * 文件写满时，写之前换了新文件的事件不写，返回false，重新写时在新文件里
+   */
+  @Test
+  public void writeAfterNewFileReturnsFalse() throws IOException {
+    File file = new File(folder.getRoot(), "roll.log");
+    MappedRingFileManager manager = open(file, true, REGION_SIZE);
+    Assert.assertTrue(manager.write(record(0, 0, 4000), 0, 4000));
+    Assert.assertFalse(manager.write(record(0, 1, 200), 0, 200));
+    Assert.assertTrue(manager.write(record(0, 1, 200), 0, 200));
+    manager.stop(1, TimeUnit.SECONDS);
+
+    Assert.assertEquals(4000, new File(file.getPath() + ".1").length());
+    Assert.assertEquals(200, file.length());
+  }
+
+  @Test
+  public void eventLongerThanRegionIsRejected() throws IOException {
+    File file = new File(folder.getRoot(), "oversized.log");
+    MappedRingFileManager manager = open(file, true, 1024 * 1024);
+    try {
+      manager.write(new byte[REGION_SIZE + 1], 0, REGION_SIZE + 1);
+      Assert.fail("event longer than regionSize was written");
+    } catch (AppenderLoggingException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains((REGION_SIZE + 1) + " bytes dropped"));
+    }
+    Assert.assertTrue(manager.write(record(0, 0, 64), 0, 64));
+    manager.stop(1, TimeUnit.SECONDS);
+
+    Assert.assertEquals(64, file.length());
+  }
+
+  @Test
+  public void appendFalseClearsExistingFile() throws IOException {
+    File file = new File(folder.getRoot(), "append.log");
+    MappedRingFileManager manager = open(file, true, 1024 * 1024);
+    manager.write(record(0, 0, 64), 0, 64);
+    manager.stop(1, TimeUnit.SECONDS);
+
+    manager = open(file, true, 1024 * 1024);
+    manager.write(record(0, 1, 64), 0, 64);
+    manager.stop(1, TimeUnit.SECONDS);
+    Assert.assertEquals(2, readAll(file, 0).size());
+
+    manager = open(file, false, 1024 * 1024);
+    manager.write(record(0, 2, 64), 0, 64);
+    manager.stop(1, TimeUnit.SECONDS);
+    List<String> lines = readAll(file, 0);
+    Assert.assertEquals(1, lines.size());
+    Assert.assertTrue(lines.get(0).startsWith("0-2-"));
+  }
+
+  private static MappedRingFileManager open(File file, boolean append, long maxFileSize) {
+    return MappedRingFileManager.getManager(file.getPath(), append, REGION_SIZE, maxFileSize, 1000, 0);
+  }
+
+  /**
+   * thread-seq-xxx...，length个字节，最后一个是换行
+   */
+  private static byte[] record(int thread, int seq, int length) {
+    byte[] bytes = new byte[length];
+    Arrays.fill(bytes, (byte) 'x');
+    byte[] head = (thread + "-" + seq + "-").getBytes(StandardCharsets.UTF_8);
+    System.arraycopy(head, 0, bytes, 0, head.length);
+    bytes[length - 1] = '\n';
+    return bytes;
+  }
+
+  /**
+   * 从最旧的fileName.maxFiles到fileName，按写入的顺序
+   */
+  private static List<File> rolledFiles(File file, int maxFiles) {
+    List<File> files = new ArrayList<>();
+    for (int i = maxFiles; i >= 1; i--) {
+      File rolled = new File(file.getPath() + "." + i);
+      if (rolled.exists()) {
+        files.add(rolled);
+      }
+    }
+    files.add(file);
+    return files;
+  }
+
+  private static List<String> readAll(File file, int maxFiles) throws IOException {
+    List<String> lines = new ArrayList<>();
+    for (File rolled : rolledFiles(file, maxFiles)) {
+      String content = new String(Files.readAllBytes(rolled.toPath()), StandardCharsets.UTF_8);
+      Assert.assertEquals(rolled + " contains 0 bytes", -1, content.indexOf('\0'));
+      for (String line : content.split("\n")) {
+        if (!line.isEmpty()) {
+          lines.add(line);
+        }
+      }
+    }
+    return lines;
+  }
+
+}
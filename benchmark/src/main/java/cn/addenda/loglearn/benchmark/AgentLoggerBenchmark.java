@@ -0,0 +1,111 @@
+package cn.addenda.loglearn.benchmark;
+
+import cn.addenda.loglearn.AgentConfig;
+import cn.addenda.loglearn.AgentLogger;
+import cn.addenda.loglearn.LogClassLoader6;
+import cn.addenda.loglearn.MyLoggerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AgentLogger}和slf4j Logger（LoggerBridge、原来的Proxy）每次调用的耗时和分配，参数是一个long和一个String；
+ * *4Args是四个参数（long、String、long、String），slf4j要创建参数数组。
+ * 配置和{@link LoggerBenchmark}一样：root为info，输出到Null appender。
+ * <p>
+ * 分配要加上gc profiler，mvn -P benchmark verify打包之后直接运行：
+ * java -jar benchmark/target/benchmarks.jar AgentLoggerBenchmark -prof gc -jvmArgsAppend -Dloglearn.home=dist，
+ * 看gc.alloc.rate.norm：agent*为0；bridge要装箱long（四个参数时还有数组），proxy还要创建参数数组、反射查找方法。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AgentLoggerBenchmark {
+
+  private AgentLogger agent;
+  private Logger bridge;
+  private Logger proxy;
+  private File dir;
+  private long counter = 1 << 20;
+  private final String value = "abc";
+
+  @Setup
+  public void setUp() throws Exception {
+    BenchmarkSupport.initAgentHome();
+    dir = BenchmarkSupport.createTempDir("loglearn-agent-logger");
+    File config = BenchmarkSupport.copyResource("log4j2-benchmark.xml", dir);
+    AgentConfig.init("log.configFile=" + config.getAbsolutePath() + ",startup.report=false");
+
+    agent = MyLoggerFactory.getAgentLogger(AgentLoggerBenchmark.class);
+    bridge = MyLoggerFactory.getLogger(AgentLoggerBenchmark.class);
+    Class<?> loggerFactoryClass = Class.forName("org.slf4j.LoggerFactory", true, LogClassLoader6.getDEFAULT_LOADER());
+    Object isolatedLogger = loggerFactoryClass.getMethod("getLogger", String.class)
+            .invoke(null, AgentLoggerBenchmark.class.getName());
+    // 和LoggerBenchmark里的proxy一致
+    proxy = (Logger) Proxy.newProxyInstance(AgentLoggerBenchmark.class.getClassLoader(), new Class[]{Logger.class},
+            (p, method, args) -> isolatedLogger.getClass()
+                    .getMethod(method.getName(), method.getParameterTypes()).invoke(isolatedLogger, args));
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkSupport.deleteQuietly(dir);
+  }
+
+  @Benchmark
+  public void agentInfo() {
+    agent.info("event {} value {}", counter++, value);
+  }
+
+  @Benchmark
+  public void bridgeInfo() {
+    bridge.info("event {} value {}", counter++, value);
+  }
+
+  @Benchmark
+  public void proxyInfo() {
+    proxy.info("event {} value {}", counter++, value);
+  }
+
+  @Benchmark
+  public void agentInfo4Args() {
+    agent.info("event {} value {} size {} state {}", counter++, value, counter, value);
+  }
+
+  @Benchmark
+  public void bridgeInfo4Args() {
+    bridge.info("event {} value {} size {} state {}", counter++, value, counter, value);
+  }
+
+  @Benchmark
+  public void agentDebugDisabled() {
+    agent.debug("event {} value {}", counter++, value);
+  }
+
+  @Benchmark
+  public void bridgeDebugDisabled() {
+    bridge.debug("event {} value {}", counter++, value);
+  }
+
+  @Benchmark
+  public void proxyDebugDisabled() {
+    proxy.debug("event {} value {}", counter++, value);
+  }
+
+}
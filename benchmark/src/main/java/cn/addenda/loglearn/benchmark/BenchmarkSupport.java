@@ -0,0 +1,103 @@
+package cn.addenda.loglearn.benchmark;
+
+import cn.addenda.loglearn.AgentPackagePath;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+final class BenchmarkSupport {
+
+  /**
+   * log4j配置文件里的日志目录：${sys:loglearn.benchmark.dir}
+   */
+  static final String DIR_PROPERTY = "loglearn.benchmark.dir";
+
+  private BenchmarkSupport() {
+  }
+
+  /**
+   * 没有通过-Dloglearn.home指定时，在当前目录和上级目录里找dist
+   */
+  static synchronized File initAgentHome() {
+    if (System.getProperty(AgentPackagePath.HOME_PROPERTY) == null) {
+      System.setProperty(AgentPackagePath.HOME_PROPERTY, findAgentHome().getAbsolutePath());
+    }
+    return checkAgentHome(AgentPackagePath.getPath());
+  }
+
+  /**
+   * 把agent目录下的lib/log复制到一个临时目录，agent目录指向它。会删除、重写jar-index.idx等缓存文件的基准测试用这个，
+   * 不改动dist。要在这个进程第一次用到agent目录之前调用
+   */
+  static synchronized File initTempAgentHome(String prefix) throws IOException {
+    File source = findAgentHome();
+    File home = Files.createTempDirectory(prefix).toFile();
+    FileUtils.copyDirectory(new File(new File(source, "lib"), "log"), new File(new File(home, "lib"), "log"));
+    System.setProperty(AgentPackagePath.HOME_PROPERTY, home.getAbsolutePath());
+    if (!home.getAbsoluteFile().equals(AgentPackagePath.getPath())) {
+      throw new IllegalStateException(String.format("agent home is already %s.", AgentPackagePath.getPath()));
+    }
+    return home;
+  }
+
+  private static File findAgentHome() {
+    String property = System.getProperty(AgentPackagePath.HOME_PROPERTY);
+    if (property != null) {
+      return checkAgentHome(new File(property).getAbsoluteFile());
+    }
+    for (String candidate : new String[]{"dist", "../dist"}) {
+      File home = new File(candidate);
+      if (new File(new File(home, "lib"), "log").isDirectory()) {
+        return home.getAbsoluteFile();
+      }
+    }
+    return checkAgentHome(new File("dist").getAbsoluteFile());
+  }
+
+  private static File checkAgentHome(File home) {
+    if (!new File(new File(home, "lib"), "log").isDirectory()) {
+      throw new IllegalStateException(String.format("%s/lib/log not found, run mvn package first or set -D%s.",
+              home, AgentPackagePath.HOME_PROPERTY));
+    }
+    return home;
+  }
+
+  static File createTempDir(String prefix) throws IOException {
+    File dir = Files.createTempDirectory(prefix).toFile();
+    System.setProperty(DIR_PROPERTY, dir.getAbsolutePath());
+    return dir;
+  }
+
+  /**
+   * 把classpath上的资源复制到dir下，返回复制出来的文件
+   */
+  static File copyResource(String name, File dir) throws IOException {
+    File file = new File(dir, name);
+    try (InputStream in = BenchmarkSupport.class.getClassLoader().getResourceAsStream(name);
+         OutputStream out = new FileOutputStream(file)) {
+      if (in == null) {
+        throw new IOException("resource not found: " + name);
+      }
+      IOUtils.copy(in, out);
+    }
+    return file;
+  }
+
+  static void deleteQuietly(File dir) {
+    FileUtils.deleteQuietly(dir);
+  }
+
+  static void closeQuietly(ClassLoader classLoader) {
+    if (classLoader instanceof Closeable) {
+      IOUtils.closeQuietly((Closeable) classLoader);
+    }
+  }
+
+}
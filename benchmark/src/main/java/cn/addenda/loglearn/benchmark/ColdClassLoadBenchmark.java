@@ -0,0 +1,53 @@
+package cn.addenda.loglearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冷加载：每次迭代新建一个类加载器，测第一次loadClass（读class、defineClass、加载父类和接口）的耗时
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 50)
+@Fork(2)
+@State(Scope.Thread)
+public class ColdClassLoadBenchmark {
+
+  @Param({"LOADER_1", "LOADER_2", "LOADER_3", "LOADER_4", "LOADER_5", "LOADER_6"})
+  public LoaderVariant variant;
+
+  @Param({"org.slf4j.LoggerFactory", "org.apache.logging.log4j.core.LoggerContext"})
+  public String className;
+
+  private ClassLoader loader;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    loader = variant.create();
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    BenchmarkSupport.closeQuietly(loader);
+  }
+
+  @Benchmark
+  public Class<?> loadClass() throws ClassNotFoundException {
+    return loader.loadClass(className);
+  }
+
+}
@@ -0,0 +1,91 @@
+package cn.addenda.loglearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个线程同时loadClass已经加载过的类的吞吐量，类名在一组常用类里轮换
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentLoadClassBenchmark {
+
+  private static final String[] CLASS_NAMES = {
+          "org.slf4j.LoggerFactory",
+          "org.slf4j.Logger",
+          "org.slf4j.MarkerFactory",
+          "org.apache.logging.log4j.LogManager",
+          "org.apache.logging.log4j.Level",
+          "org.apache.logging.log4j.core.LoggerContext",
+          "org.apache.logging.log4j.core.Logger",
+          "org.apache.logging.slf4j.Log4jLogger",
+          // 委派给父加载器的类
+          "java.lang.String",
+          "java.util.concurrent.ConcurrentHashMap",
+  };
+
+  @Param({"LOADER_2", "LOADER_3", "LOADER_4", "LOADER_5", "LOADER_6"})
+  public LoaderVariant variant;
+
+  private ClassLoader loader;
+
+  @Setup
+  public void setUp() throws ClassNotFoundException {
+    loader = variant.create();
+    for (String className : CLASS_NAMES) {
+      loader.loadClass(className);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkSupport.closeQuietly(loader);
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int next;
+
+    String nextClassName() {
+      String className = CLASS_NAMES[next];
+      next = next + 1 == CLASS_NAMES.length ? 0 : next + 1;
+      return className;
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Class<?> threads1(Cursor cursor) throws ClassNotFoundException {
+    return loader.loadClass(cursor.nextClassName());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Class<?> threads4(Cursor cursor) throws ClassNotFoundException {
+    return loader.loadClass(cursor.nextClassName());
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Class<?> threads8(Cursor cursor) throws ClassNotFoundException {
+    return loader.loadClass(cursor.nextClassName());
+  }
+
+}
@@ -0,0 +1,104 @@
+package cn.addenda.loglearn.benchmark;
+
+import cn.addenda.loglearn.plugin.FanOutAppender;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.RollingFileAppender;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 按级别拆分的5个文件：每个appender各自格式化（before，原来的log4j2.xml）和FanOut只格式化一次（after）。
+ * <p>
+ * 除了每条日志的耗时，还用辅助计数器记录格式化产生的字节数：formattedBytes / events就是每个事件格式化的字节数。
+ * before是5个RollingFileManager写入字节数之和（每个appender写的都是自己格式化的），after是FanOut编码的字节数。
+ * 日志按7条info、1条warn的比例输出。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanOutBenchmark {
+
+  @Param({"fanout-before.xml", "fanout-after.xml"})
+  public String config;
+
+  private File dir;
+  private LoggerContext context;
+  private Logger logger;
+  private LongSupplier formattedBytes;
+
+  @Setup
+  public void setUp() throws Exception {
+    dir = BenchmarkSupport.createTempDir("loglearn-fanout");
+    File configFile = BenchmarkSupport.copyResource(config, dir);
+    context = Configurator.initialize("fanout", null, configFile.toURI());
+    logger = context.getLogger(FanOutBenchmark.class.getName());
+
+    FanOutAppender fanOut = context.getConfiguration().getAppender("FanOut");
+    if (fanOut != null) {
+      formattedBytes = fanOut::getEncodedByteCount;
+    } else {
+      List<RollingFileAppender> appenders = new ArrayList<>();
+      for (Appender appender : context.getConfiguration().getAppenders().values()) {
+        if (appender instanceof RollingFileAppender) {
+          appenders.add((RollingFileAppender) appender);
+        }
+      }
+      formattedBytes = () -> {
+        long sum = 0;
+        for (RollingFileAppender appender : appenders) {
+          sum += appender.getManager().getFileSize();
+        }
+        return sum;
+      };
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    Configurator.shutdown(context);
+    BenchmarkSupport.deleteQuietly(dir);
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public long formattedBytes;
+    public long events;
+  }
+
+  @Benchmark
+  public void log(Counters counters) {
+    long before = formattedBytes.getAsLong();
+    long event = counters.events++;
+    if ((event & 7) == 7) {
+      logger.warn("event {} value {}", event, "abc");
+    } else {
+      logger.info("event {} value {}", event, "abc");
+    }
+    counters.formattedBytes += formattedBytes.getAsLong() - before;
+  }
+
+}
@@ -0,0 +1,69 @@
+package cn.addenda.loglearn.benchmark;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 写文件的吞吐量：RollingFile（immediateFlush，原来的配置）和MappedRingFile
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileAppenderBenchmark {
+
+  @Param({"file-rolling.xml", "file-mmap.xml"})
+  public String config;
+
+  private File dir;
+  private LoggerContext context;
+  private Logger logger;
+  private final AtomicLong counter = new AtomicLong();
+
+  @Setup
+  public void setUp() throws Exception {
+    dir = BenchmarkSupport.createTempDir("loglearn-file");
+    File configFile = BenchmarkSupport.copyResource(config, dir);
+    context = Configurator.initialize("file", null, configFile.toURI());
+    logger = context.getLogger(FileAppenderBenchmark.class.getName());
+  }
+
+  @TearDown
+  public void tearDown() {
+    Configurator.shutdown(context);
+    BenchmarkSupport.deleteQuietly(dir);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void threads1() {
+    logger.info("event {} value {}", counter.getAndIncrement(), "abc");
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void threads4() {
+    logger.info("event {} value {}", counter.getAndIncrement(), "abc");
+  }
+
+}
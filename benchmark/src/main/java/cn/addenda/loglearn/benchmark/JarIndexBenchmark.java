@@ -0,0 +1,74 @@
+package cn.addenda.loglearn.benchmark;
+
+import cn.addenda.loglearn.LogClassLoader6;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 创建LogClassLoader6的耗时：lib/log/jar-index.idx有效（hit）和不存在、需要解析jar并重写（miss）。
+ * miss要删除jar-index.idx，所以agent目录是dist/lib/log复制出来的临时目录，不改动dist。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(2)
+@State(Scope.Thread)
+public class JarIndexBenchmark {
+
+  @Param({"hit", "miss"})
+  public String cache;
+
+  private File home;
+  private File indexFile;
+  private ClassLoader loader;
+
+  @Setup(Level.Trial)
+  public void setUpHome() throws IOException {
+    home = BenchmarkSupport.initTempAgentHome("loglearn-jar-index");
+    indexFile = new File(new File(new File(home, "lib"), "log"), "jar-index.idx");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownHome() {
+    BenchmarkSupport.deleteQuietly(home);
+  }
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    if ("miss".equals(cache) && indexFile.exists() && !indexFile.delete()) {
+      throw new IllegalStateException("unable to delete " + indexFile);
+    }
+  }
+
+  /**
+   * LogClassLoader6打开了jar、mmap了索引，每次创建完都要关闭
+   */
+  @TearDown(Level.Invocation)
+  public void closeLoader() {
+    BenchmarkSupport.closeQuietly(loader);
+    loader = null;
+  }
+
+  @Benchmark
+  public ClassLoader createLoader() {
+    loader = new LogClassLoader6(ClassLoader.getSystemClassLoader().getParent());
+    return loader;
+  }
+
+}
@@ -0,0 +1,74 @@
+package cn.addenda.loglearn.benchmark;
+
+import cn.addenda.loglearn.LogClassLoader;
+import cn.addenda.loglearn.LogClassLoader2;
+import cn.addenda.loglearn.LogClassLoader3;
+import cn.addenda.loglearn.LogClassLoader4;
+import cn.addenda.loglearn.LogClassLoader5;
+import cn.addenda.loglearn.LogClassLoader6;
+
+/**
+ * 参与对比的隔离类加载器，父加载器都和initDefaultLoader()一样是ExtClassLoader（PlatformClassLoader）
+ */
+public enum LoaderVariant {
+
+  /**
+   * URLClassLoader，不检查findLoadedClass，同一个类不能加载两次
+   */
+  LOADER_1 {
+    @Override
+    ClassLoader create(ClassLoader parent) {
+      return new LogClassLoader(parent);
+    }
+  },
+  /**
+   * URLClassLoader
+   */
+  LOADER_2 {
+    @Override
+    ClassLoader create(ClassLoader parent) {
+      return new LogClassLoader2(parent);
+    }
+  },
+  /**
+   * URLClassLoader，自己从JarFile读class
+   */
+  LOADER_3 {
+    @Override
+    ClassLoader create(ClassLoader parent) {
+      return new LogClassLoader3(parent);
+    }
+  },
+  /**
+   * ClassLoader，自己扫描jar
+   */
+  LOADER_4 {
+    @Override
+    ClassLoader create(ClassLoader parent) {
+      return new LogClassLoader4(parent);
+    }
+  },
+  LOADER_5 {
+    @Override
+    ClassLoader create(ClassLoader parent) {
+      return new LogClassLoader5(parent);
+    }
+  },
+  /**
+   * ClassLoader，entry索引 + 无锁快速路径，agent实际使用的加载器
+   */
+  LOADER_6 {
+    @Override
+    ClassLoader create(ClassLoader parent) {
+      return new LogClassLoader6(parent);
+    }
+  };
+
+  abstract ClassLoader create(ClassLoader parent);
+
+  ClassLoader create() {
+    BenchmarkSupport.initAgentHome();
+    return create(ClassLoader.getSystemClassLoader().getParent());
+  }
+
+}
@@ -0,0 +1,119 @@
+package cn.addenda.loglearn.benchmark;
+
+import cn.addenda.loglearn.AgentConfig;
+import cn.addenda.loglearn.LogClassLoader6;
+import cn.addenda.loglearn.MyLoggerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次调用Logger的额外开销：
+ * <ul>
+ *   <li>bridge：MyLoggerFactory返回的LoggerBridge（MethodHandle）</li>
+ *   <li>proxy：原来的实现，java.lang.reflect.Proxy，每次调用都反射查找并调用目标方法</li>
+ *   <li>direct：应用自己classpath上的slf4j + log4j，没有隔离</li>
+ * </ul>
+ * 隔离的和直接的log4j用同一份配置：root为info，输出到Null appender，所以info会走完整的事件创建，debug被级别过滤。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggerBenchmark {
+
+  @Param({"bridge", "proxy", "direct"})
+  public String logger;
+
+  private Logger target;
+  private File dir;
+  private long counter;
+
+  @Setup
+  public void setUp() throws Exception {
+    BenchmarkSupport.initAgentHome();
+    dir = BenchmarkSupport.createTempDir("loglearn-logger");
+    File config = BenchmarkSupport.copyResource("log4j2-benchmark.xml", dir);
+    // 隔离的log4j：log.configFile；直接的log4j：log4j.configurationFile
+    AgentConfig.init("log.configFile=" + config.getAbsolutePath() + ",startup.report=false");
+    System.setProperty("log4j.configurationFile", config.getAbsolutePath());
+
+    switch (logger) {
+      case "bridge":
+        target = MyLoggerFactory.getLogger(LoggerBenchmark.class);
+        break;
+      case "proxy":
+        MyLoggerFactory.getLogger(LoggerBenchmark.class);
+        target = reflectiveProxy(isolatedLogger(LoggerBenchmark.class.getName()));
+        break;
+      case "direct":
+        target = LoggerFactory.getLogger(LoggerBenchmark.class);
+        break;
+      default:
+        throw new IllegalArgumentException(logger);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkSupport.deleteQuietly(dir);
+  }
+
+  @Benchmark
+  public boolean isInfoEnabled() {
+    return target.isInfoEnabled();
+  }
+
+  @Benchmark
+  public void debugDisabled() {
+    target.debug("event {} value {}", counter++, "abc");
+  }
+
+  @Benchmark
+  public void infoEnabled() {
+    target.info("event {} value {}", counter++, "abc");
+  }
+
+  private static Object isolatedLogger(String name) throws Exception {
+    Class<?> loggerFactoryClass = Class.forName("org.slf4j.LoggerFactory", true, LogClassLoader6.getDEFAULT_LOADER());
+    return loggerFactoryClass.getMethod("getLogger", String.class).invoke(null, name);
+  }
+
+  /**
+   * 和LoggerBridge之前的实现一致
+   */
+  private static Logger reflectiveProxy(Object loggerInstance) {
+    return (Logger) Proxy.newProxyInstance(
+            LoggerBenchmark.class.getClassLoader(),
+            new Class[]{Logger.class},
+            new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Method targetMethod = loggerInstance.getClass().getMethod(
+                        method.getName(), method.getParameterTypes());
+                return targetMethod.invoke(loggerInstance, args);
+              }
+            }
+    );
+  }
+
+}
@@ -0,0 +1,68 @@
+package cn.addenda.loglearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getResource、getResources命中和未命中的耗时。
+ * LOADER_1 ~ LOADER_5每次查找都会打印一行日志，这也是它们实际的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResourceBenchmark {
+
+  @Param({"LOADER_1", "LOADER_2", "LOADER_3", "LOADER_4", "LOADER_5", "LOADER_6"})
+  public LoaderVariant variant;
+
+  /**
+   * 只在一个jar里的资源、每个jar里都有的资源、不存在的资源
+   */
+  @Param({"org/apache/logging/log4j/core/LoggerContext.class", "META-INF/MANIFEST.MF", "org/apache/logging/log4j/core/Missing.class"})
+  public String resourceName;
+
+  private ClassLoader loader;
+
+  @Setup
+  public void setUp() {
+    loader = variant.create();
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkSupport.closeQuietly(loader);
+  }
+
+  @Benchmark
+  public URL getResource() {
+    return loader.getResource(resourceName);
+  }
+
+  @Benchmark
+  public void getResources(Blackhole blackhole) throws IOException {
+    Enumeration<URL> resources = loader.getResources(resourceName);
+    while (resources.hasMoreElements()) {
+      blackhole.consume(resources.nextElement());
+    }
+  }
+
+}
@@ -0,0 +1,54 @@
+package cn.addenda.loglearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热加载：类已经加载过，测再次loadClass的耗时。
+ * LOADER_1不检查findLoadedClass，第二次加载会重复定义类，所以不参与
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WarmClassLoadBenchmark {
+
+  @Param({"LOADER_2", "LOADER_3", "LOADER_4", "LOADER_5", "LOADER_6"})
+  public LoaderVariant variant;
+
+  @Param({"org.slf4j.LoggerFactory", "org.apache.logging.log4j.core.LoggerContext"})
+  public String className;
+
+  private ClassLoader loader;
+
+  @Setup
+  public void setUp() throws ClassNotFoundException {
+    loader = variant.create();
+    loader.loadClass(className);
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkSupport.closeQuietly(loader);
+  }
+
+  @Benchmark
+  public Class<?> loadClass() throws ClassNotFoundException {
+    return loader.loadClass(className);
+  }
+
+}